@@ -0,0 +1,49 @@
+package unige.assessor.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.github.javaparser.ast.CompilationUnit;
+
+import unige.assessor.ParserFactory;
+import unige.assessor.TreeDecomposer;
+
+/** Printing of all the units created by the decomposition of a test class, as they are printed before they are written */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EmitBenchmark {
+	@Param({"10", "100", "1000"})
+	public int tests;
+
+	private List<CompilationUnit> units;
+
+	@Setup
+	public void decomposeSuite() {
+		TreeDecomposer decomposer = new TreeDecomposer(false, "", true);
+		decomposer.analyzeCompilationUnit(ParserFactory.parseOnly().parse(SuiteSource.testSuite(tests)));
+		units = decomposer.getUnits();
+	}
+
+	@Benchmark
+	public void emitUnits(Blackhole blackhole) {
+		for(CompilationUnit unit : units)
+			blackhole.consume(unit.toString());
+	}
+}
@@ -0,0 +1,93 @@
+package unige.assessor.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.body.MethodDeclaration;
+
+import unige.assessor.PageObjectModel;
+import unige.assessor.ParserFactory;
+import unige.assessor.TreeDecomposer;
+
+/** Methods added to a PageObject that already has many methods
+ * addMethods goes through the whole decomposition: half of the methods are unified with a method already in the PageObject,
+ * the others are renamed. The model of the PageObject is also measured alone: the methods added with their fingerprint,
+ * the search of a method with the same body and the check of a method name
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PageObjectMethodBenchmark {
+	@Param({"100", "1000"})
+	public int methods;
+
+	private CompilationUnit unit;
+	//Methods of the PageObject created by the decomposition, the model doesn't change them
+	private List<MethodDeclaration> pageObjectMethods;
+	private PageObjectModel pageObject;
+	private MethodDeclaration sameMethod;
+	private MethodDeclaration newMethod;
+
+	@Setup
+	public void createPageObject() {
+		unit = ParserFactory.parseOnly().parse(SuiteSource.pageObjectMethods(methods));
+		TreeDecomposer decomposer = new TreeDecomposer(false, "", false);
+		decomposer.analyzeCompilationUnit(unit);
+		pageObjectMethods = decomposer.getPageObjects().get(0).getMethods();
+		pageObject = addMethods(new PageObjectModel("PageObject"));
+		//The last method added is searched, and a method with a body that is not in the PageObject
+		sameMethod = pageObjectMethods.get(pageObjectMethods.size()-1).clone();
+		newMethod = sameMethod.clone();
+		newMethod.getBody().get().addStatement("driver.close();");
+	}
+
+	private PageObjectModel addMethods(PageObjectModel model) {
+		for(MethodDeclaration method : pageObjectMethods)
+			model.addMethod(method);
+		model.seal();
+		return model;
+	}
+
+	@Benchmark
+	public TreeDecomposer addMethods() {
+		TreeDecomposer decomposer = new TreeDecomposer(false, "", false);
+		decomposer.analyzeCompilationUnit(unit);
+		return decomposer;
+	}
+
+	@Benchmark
+	public PageObjectModel addModelMethods() {
+		return addMethods(new PageObjectModel("PageObject"));
+	}
+
+	@Benchmark
+	public String getMethodAlreadyIn() {
+		return pageObject.findSameMethod(sameMethod);
+	}
+
+	@Benchmark
+	public String getMethodNotIn() {
+		return pageObject.findSameMethod(newMethod);
+	}
+
+	@Benchmark
+	public boolean containsMethodName() {
+		return pageObject.containsMethodName(sameMethod.getNameAsString());
+	}
+}
@@ -0,0 +1,60 @@
+package unige.assessor.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.javaparser.ast.CompilationUnit;
+
+import unige.assessor.DecompositionCache;
+import unige.assessor.ParserFactory;
+
+/** Read, hash and parse of an input file, the same steps done by AssessorTool for a file not found in the cache */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParseBenchmark {
+	@Param({"10", "100", "1000"})
+	public int tests;
+
+	private final ParserFactory parsers = ParserFactory.parseOnly();
+	private File file;
+
+	@Setup
+	public void writeSuite() throws IOException {
+		Path path = Files.createTempFile("SuiteTest", ".java");
+		Files.write(path, SuiteSource.testSuite(tests).getBytes(StandardCharsets.UTF_8));
+		file = path.toFile();
+	}
+
+	@TearDown
+	public void deleteSuite() throws IOException {
+		Files.delete(file.toPath());
+	}
+
+	@Benchmark
+	public CompilationUnit recoverCompilationUnit() throws IOException {
+		byte[] content = Files.readAllBytes(file.toPath());
+		DecompositionCache.hash(content);
+		return parsers.parse(new String(content, StandardCharsets.UTF_8));
+	}
+}
@@ -0,0 +1,102 @@
+package unige.assessor.benchmark;
+
+import unige.assessor.ExportGenerator;
+
+/** Source code of synthetic Selenium IDE exports, with the {ASSESSOR} delimiters used by the TreeDecomposer
+ * The suites come from the ExportGenerator, the other sources stress a single operation.
+ * The same arguments always give the same source, so the results of two runs can be compared
+ */
+final class SuiteSource {
+	private static final String HEADER = "// Generated by Selenium IDE\n"
+			+ "import org.junit.Test;\n"
+			+ "import org.junit.Before;\n"
+			+ "import org.junit.After;\n"
+			+ "import static org.junit.Assert.*;\n"
+			+ "import static org.hamcrest.CoreMatchers.is;\n"
+			+ "import org.openqa.selenium.By;\n"
+			+ "import org.openqa.selenium.WebDriver;\n"
+			+ "import org.openqa.selenium.firefox.FirefoxDriver;\n"
+			+ "import org.openqa.selenium.JavascriptExecutor;\n"
+			+ "import java.util.*;\n";
+
+	private SuiteSource() {
+	}
+
+	/** A test class with the number of tests, generated with the default settings of the ExportGenerator
+	 *
+	 * @param tests
+	 * @return
+	 */
+	static String testSuite(int tests) {
+		return new ExportGenerator(1, Math.max(1, tests/10), 5, 0.5, 0.3, 0.2, 0.3).generateClass("SuiteTest", tests);
+	}
+
+	/** A single test that adds the number of methods with the same name to one PageObject
+	 * Only half of the bodies are different, so the other methods are unified and the different ones are renamed
+	 *
+	 * @param methods
+	 * @return
+	 */
+	static String pageObjectMethods(int methods) {
+		StringBuilder source = openClass("PageObjectTest");
+		openTest(source, "manySteps");
+		int bodies = Math.max(1, methods/2);
+		for(int i=0;i<methods;i++) {
+			delimiter(source, "BigPage", "step");
+			line(source, "driver.findElement(By.id(\"field"+(i%bodies)+"\")).click();");
+		}
+		closeTest(source);
+		return closeClass(source);
+	}
+
+	/** A single test with the number of xpath instructions in one PageObject method, each xpath has values to extract
+	 *
+	 * @param statements
+	 * @return
+	 */
+	static String xpathStatements(int statements) {
+		StringBuilder source = openClass("XPathTest");
+		openTest(source, "xpath");
+		delimiter(source, "XPathPage", "select");
+		for(int i=0;i<statements;i++) {
+			if(i%2==0)
+				line(source, "driver.findElement(By.xpath(\"//input[@name='status"+i+"' and @value='Listed']\")).click();");
+			else
+				line(source, "driver.findElement(By.xpath(\"//td[text()='Row"+i+"' and @class='x']\")).click();");
+		}
+		closeTest(source);
+		return closeClass(source);
+	}
+
+	private static StringBuilder openClass(String className) {
+		StringBuilder source = new StringBuilder(HEADER);
+		source.append("public class ").append(className).append(" {\n");
+		source.append("  private WebDriver driver;\n");
+		source.append("  private Map<String, Object> vars;\n");
+		source.append("  JavascriptExecutor js;\n");
+		source.append("  @Before\n  public void setUp() {\n    driver = new FirefoxDriver();\n    js = (JavascriptExecutor) driver;\n"
+				+ "    vars = new HashMap<String, Object>();\n  }\n");
+		source.append("  @After\n  public void tearDown() {\n    driver.quit();\n  }\n");
+		return source;
+	}
+
+	private static String closeClass(StringBuilder source) {
+		return source.append("}\n").toString();
+	}
+
+	private static void openTest(StringBuilder source, String name) {
+		source.append("  @Test\n  public void ").append(name).append("() {\n");
+	}
+
+	private static void closeTest(StringBuilder source) {
+		source.append("  }\n");
+	}
+
+	private static void delimiter(StringBuilder source, String pageObject, String method) {
+		line(source, "System.out.println(\"{ASSESSOR}:"+pageObject+":"+method+"\");");
+	}
+
+	private static void line(StringBuilder source, String instruction) {
+		source.append("    ").append(instruction).append('\n');
+	}
+}
@@ -0,0 +1,46 @@
+package unige.assessor.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.javaparser.ast.CompilationUnit;
+
+import unige.assessor.ParserFactory;
+import unige.assessor.TreeDecomposer;
+
+/** A PageObject method made only of xpath instructions with values, each one goes through extractArgumentFromXPath */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class XPathBenchmark {
+	@Param({"100", "1000"})
+	public int statements;
+
+	private CompilationUnit unit;
+
+	@Setup
+	public void parseSuite() {
+		unit = ParserFactory.parseOnly().parse(SuiteSource.xpathStatements(statements));
+	}
+
+	@Benchmark
+	public TreeDecomposer extractArgumentFromXPath() {
+		TreeDecomposer decomposer = new TreeDecomposer(false, "", false);
+		decomposer.analyzeCompilationUnit(unit);
+		return decomposer;
+	}
+}
@@ -0,0 +1,90 @@
+package unige.assessor;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/** Thin client of the {@link AssessorDaemon}: it sends the arguments as a job and prints the answer
+ * It loads only a few classes of the JDK, so it starts much faster than the tool itself.
+ * Usage: java -cp AssessorTool.jar unige.assessor.AssessorClient [--daemon=file] arguments of AssessorTool
+ * The exit code is the one of the job, or 2 if the daemon can't be reached
+ */
+public class AssessorClient {
+	//Start of the options, the other arguments are the input directory
+	private static final String OPTION_PREFIX = "--";
+
+	public static void main(String[] args) {
+		Path daemonFile = AssessorDaemon.defaultDaemonFile();
+		int first = 0;
+		if(args.length>0 && AssessorDaemon.isDaemonOption(args[0])) {
+			String value = AssessorDaemon.daemonFileOption(args[0]);
+			if(value!=null)
+				daemonFile = Paths.get(value);
+			first = 1;
+		}
+		int exitCode;
+		try {
+			exitCode = sendJob(daemonFile, args, first);
+		}catch(IOException e) {
+			System.err.println("Cannot reach the daemon of "+daemonFile+": "+e);
+			exitCode = 2;
+		}
+		System.exit(exitCode);
+	}
+
+	/** Send the arguments from the first as a job, print the messages of the job and return its exit code
+	 *
+	 * @param daemonFile
+	 * @param args
+	 * @param first
+	 * @return
+	 * @throws IOException
+	 */
+	private static int sendJob(Path daemonFile, String[] args, int first) throws IOException {
+		//The daemon file contains: port token
+		String[] daemon = new String(Files.readAllBytes(daemonFile), StandardCharsets.UTF_8).trim().split(" ");
+		try(Socket socket = new Socket(InetAddress.getLoopbackAddress(), Integer.parseInt(daemon[0]))) {
+			PrintStream out = new PrintStream(socket.getOutputStream(), false, StandardCharsets.UTF_8.name());
+			out.println(daemon[1]);
+			//An empty line ends the job, so the empty arguments are not sent
+			for(int i=first;i<args.length;i++)
+				if(!args[i].isEmpty())
+					out.println(absolutePaths(args[i]));
+			out.println();
+			out.flush();
+			BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+			String line;
+			while((line = in.readLine())!=null) {
+				if(line.startsWith(AssessorDaemon.EXIT)) {
+					String result = line.substring(AssessorDaemon.EXIT.length());
+					if(result.length()>1)
+						System.err.println(result.substring(2));
+					return Integer.parseInt(result.substring(0, 1));
+				}
+				System.out.println(line);
+			}
+		}
+		throw new IOException("The daemon closed the connection before the end of the job");
+	}
+
+	/** Resolve the input directory and the output directory against the directory of the client,
+	 * the daemon runs in another working directory. The other options are sent as they are
+	 *
+	 * @param arg
+	 * @return
+	 */
+	private static String absolutePaths(String arg) {
+		if(arg.startsWith(AssessorTool.OUTPUT_OPTION))
+			return AssessorTool.OUTPUT_OPTION+Paths.get(arg.substring(AssessorTool.OUTPUT_OPTION.length())).toAbsolutePath();
+		if(!arg.startsWith(OPTION_PREFIX))
+			return Paths.get(arg).toAbsolutePath().toString();
+		return arg;
+	}
+}
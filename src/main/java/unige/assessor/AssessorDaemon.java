@@ -0,0 +1,199 @@
+package unige.assessor;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+/** Process that stays resident and runs the jobs of the clients, so the JVM start, the load of the parser classes and
+ * the JIT warm-up are paid only once. Each job is a run of AssessorTool with its own TreeDecomposer, the threads of the
+ * parsers and their parsers are kept between the jobs. The jobs run one at a time, in the order they arrive.
+ *
+ * A job is the list of the arguments of the command line, one for each line, followed by an empty line. The daemon answers
+ * with the messages of the run and a last line EXIT 0, or EXIT 1 and the error. The job --stop stops the daemon.
+ * The jobs are read from a socket on the loopback interface: the port and a secret token are written in the daemon file,
+ * readable only by its owner, and the first line of each connection must be the token. With --daemon=- the jobs are
+ * read from the standard input and the answers are written on the standard output.
+ */
+public class AssessorDaemon implements Closeable {
+	//Option that starts the daemon: --daemon, --daemon=file or --daemon=- for the standard input
+	static final String DAEMON_OPTION = "--daemon";
+	//Value of the daemon option to read the jobs from the standard input
+	static final String STDIN = "-";
+	//Job that stops the daemon
+	static final String STOP_JOB = "--stop";
+	//Start of the last line of the answer to a job
+	static final String EXIT = "EXIT ";
+	private static final int TOKEN_BYTES = 16;
+	//Time to wait for each line sent by a client, so a client that sends nothing doesn't block the next jobs
+	private static final int CLIENT_TIMEOUT_MILLIS = 10000;
+
+	//Threads of the parsers, kept warm between the jobs
+	private final ExecutorService parsers = ParsePipeline.newParserPool();
+
+	/**
+	 * @param args the first argument is --daemon, --daemon=file or --daemon=-
+	 * @throws IOException
+	 */
+	public static void main(String[] args) throws IOException {
+		String target = daemonFileOption(args[0]);
+		try(AssessorDaemon daemon = new AssessorDaemon()) {
+			if(STDIN.equals(target))
+				daemon.serve(new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8)), System.out);
+			else
+				daemon.listen(target!=null ? Paths.get(target) : defaultDaemonFile());
+		}
+	}
+
+	/**
+	 * @param arg
+	 * @return true if the argument is --daemon or --daemon=value
+	 */
+	static boolean isDaemonOption(String arg) {
+		return DAEMON_OPTION.equals(arg) || arg.startsWith(DAEMON_OPTION+"=");
+	}
+
+	/** Return the value of --daemon=value, or null if there is no value
+	 *
+	 * @param arg
+	 * @return
+	 */
+	static String daemonFileOption(String arg) {
+		String value = arg.length()>DAEMON_OPTION.length() ? arg.substring(DAEMON_OPTION.length()+1) : "";
+		return value.isEmpty() ? null : value;
+	}
+
+	/** The default daemon file, used by the daemon and by the client when no file is given
+	 *
+	 * @return
+	 */
+	static Path defaultDaemonFile() {
+		return Paths.get(System.getProperty("user.home"), ".assessor", "daemon");
+	}
+
+	/** Accept the connections on the loopback interface until a job stops the daemon
+	 *
+	 * @param daemonFile file where the port and the token are written, it is removed when the daemon stops
+	 * @throws IOException
+	 */
+	public void listen(Path daemonFile) throws IOException {
+		byte[] secret = new byte[TOKEN_BYTES];
+		new SecureRandom().nextBytes(secret);
+		StringBuilder token = new StringBuilder();
+		for(byte value : secret)
+			token.append(String.format("%02x", value & 0xff));
+		try(ServerSocket server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+			writeDaemonFile(daemonFile, server.getLocalPort()+" "+token);
+			System.out.println("Daemon listening on port "+server.getLocalPort()+", daemon file: "+daemonFile);
+			try {
+				boolean running = true;
+				while(running) {
+					try(Socket client = server.accept()) {
+						//The jobs are run one at a time, the timeout is only for reading, not for the job itself
+						client.setSoTimeout(CLIENT_TIMEOUT_MILLIS);
+						BufferedReader in = new BufferedReader(new InputStreamReader(client.getInputStream(), StandardCharsets.UTF_8));
+						PrintStream out = new PrintStream(client.getOutputStream(), true, StandardCharsets.UTF_8.name());
+						String clientToken = in.readLine();
+						if(clientToken==null || !MessageDigest.isEqual(clientToken.getBytes(StandardCharsets.UTF_8),
+								token.toString().getBytes(StandardCharsets.UTF_8))) {
+							out.println(EXIT+"1 Wrong token");
+							continue;
+						}
+						running = serve(in, out);
+					}catch(IOException e) {
+						//A client that closes the connection doesn't stop the daemon
+						System.out.println("Connection failed: "+e);
+					}
+				}
+			}finally {
+				Files.deleteIfExists(daemonFile);
+			}
+		}
+		System.out.println("Daemon stopped");
+	}
+
+	/** Write the file readable only by the owner, where the file system supports it
+	 *
+	 * @param daemonFile
+	 * @param content
+	 * @throws IOException
+	 */
+	private static void writeDaemonFile(Path daemonFile, String content) throws IOException {
+		Path directory = daemonFile.toAbsolutePath().getParent();
+		if(directory!=null)
+			Files.createDirectories(directory);
+		Files.deleteIfExists(daemonFile);
+		try {
+			Files.createFile(daemonFile, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+		}catch(UnsupportedOperationException e) {
+			Files.createFile(daemonFile);
+		}
+		try(Writer writer = new OutputStreamWriter(Files.newOutputStream(daemonFile, StandardOpenOption.TRUNCATE_EXISTING), StandardCharsets.UTF_8)) {
+			writer.write(content);
+		}
+	}
+
+	/** Run the jobs read from the reader until its end
+	 *
+	 * @param in
+	 * @param out
+	 * @return false if a job stops the daemon
+	 * @throws IOException
+	 */
+	public boolean serve(BufferedReader in, PrintStream out) throws IOException {
+		List<String> job = new ArrayList<>();
+		String line;
+		while((line = in.readLine())!=null) {
+			if(!line.isEmpty()) {
+				job.add(line);
+				continue;
+			}
+			if(job.isEmpty())
+				continue;
+			if(job.size()==1 && STOP_JOB.equals(job.get(0))) {
+				out.println(EXIT+"0");
+				return false;
+			}
+			runJob(job, out);
+			job.clear();
+		}
+		return true;
+	}
+
+	/** Run a job and write its messages and the exit line
+	 *
+	 * @param args
+	 * @param out
+	 */
+	private void runJob(List<String> args, PrintStream out) {
+		try {
+			AssessorTool.run(args.toArray(new String[0]), out, parsers);
+			out.println(EXIT+"0");
+		}catch(IOException | RuntimeException e) {
+			out.println(EXIT+"1 "+e);
+		}
+		out.flush();
+	}
+
+	@Override
+	public void close() {
+		parsers.shutdownNow();
+	}
+}
@@ -0,0 +1,84 @@
+package unige.assessor;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/** Java Flight Recorder events of the work done for each file, method, PageObject and generated unit
+ * The events are committed only while a recording is running, otherwise their cost is only the creation of the object.
+ * The events of the decomposer are nested in time inside the DecomposeFile event of the same thread, so a recording
+ * shows the file that caused them. Record with: java -XX:StartFlightRecording=filename=assessor.jfr -jar AssessorTool.jar
+ */
+public final class AssessorEvents {
+	private static final String CATEGORY = "Assessor";
+
+	private AssessorEvents() {
+	}
+
+	@Name("unige.assessor.ParseFile")
+	@Label("Parse File")
+	@Category(CATEGORY)
+	@Description("Read of an input file and parse of its source code, the file is not parsed if it is replayed from the cache")
+	public static class ParseFile extends Event {
+		@Label("File")
+		public String file;
+		@Label("Size")
+		@DataAmount
+		public long bytes;
+		@Label("Replayed from cache")
+		public boolean cached;
+	}
+
+	@Name("unige.assessor.DecomposeFile")
+	@Label("Decompose File")
+	@Category(CATEGORY)
+	@Description("Analysis of a parsed input file, or replay of its contribution from the cache")
+	public static class DecomposeFile extends Event {
+		@Label("File")
+		public String file;
+		@Label("Replayed from cache")
+		public boolean replayed;
+	}
+
+	@Name("unige.assessor.AnalyzeMethod")
+	@Label("Analyze Method")
+	@Category(CATEGORY)
+	@Description("Analysis of a method of a test class, the statements are moved to the test suite and to the PageObjects")
+	public static class AnalyzeMethod extends Event {
+		@Label("Test Class")
+		public String testClass;
+		@Label("Method")
+		public String method;
+		@Label("Statements")
+		public int statements;
+	}
+
+	@Name("unige.assessor.CreatePageObject")
+	@Label("Create PageObject")
+	@Category(CATEGORY)
+	@Description("Creation of a new PageObject class")
+	public static class CreatePageObject extends Event {
+		@Label("PageObject")
+		public String pageObject;
+		@Label("PageObjects")
+		@Description("Number of PageObjects with the new one")
+		public int pageObjects;
+	}
+
+	@Name("unige.assessor.EmitUnit")
+	@Label("Emit Unit")
+	@Category(CATEGORY)
+	@Description("Print of a generated unit on the thread that prints it, the test suite of the streaming mode is also written while it is printed")
+	public static class EmitUnit extends Event {
+		@Label("Class")
+		public String className;
+		@Label("PageObject")
+		public boolean pageObject;
+		@Label("Statements")
+		@Description("Statements of the unit in memory, in streaming mode the test methods are in the spool and are not counted")
+		public int statements;
+	}
+}
@@ -1,99 +1,493 @@
 package unige.assessor;
 
 import java.io.File;
-import java.io.FileWriter;
-import java.io.FilenameFilter;
 import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Supplier;
 
 
-import com.github.javaparser.StaticJavaParser;
 import com.github.javaparser.ast.CompilationUnit;
-import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
-
-import com.github.javaparser.symbolsolver.JavaSymbolSolver;
-import com.github.javaparser.symbolsolver.resolution.typesolvers.CombinedTypeSolver;
-import com.github.javaparser.symbolsolver.resolution.typesolvers.ReflectionTypeSolver;
 
 
 public class AssessorTool {
+	//One parser for each parsing thread, reused for all the files
+	private static final ParserFactory PARSERS = ParserFactory.parseOnly();
+	//Directory inside the output where the contribution of each file is saved
+	private static final String CACHE_DIRECTORY = ".cache";
+	//Option to keep running and decompose again the input when it changes
+	private static final String WATCH_OPTION = "--watch";
+	//Time without changes in the input before the decomposition starts again
+	private static final long WATCH_DEBOUNCE_MILLIS = 500;
+	//Directories listed at the same time while the input is searched
+	private static final int DISCOVERY_THREADS = 4;
+	//Options of the input discovery, each can be repeated: --include=glob --exclude=glob --max-depth=N
+	private static final String INCLUDE_OPTION = "--include=";
+	private static final String EXCLUDE_OPTION = "--exclude=";
+	private static final String MAX_DEPTH_OPTION = "--max-depth=";
+	//Option to keep in memory only the last test methods and the PageObjects used recently: --streaming [--max-page-objects=N]
+	private static final String STREAMING_OPTION = "--streaming";
+	private static final String MAX_PAGE_OBJECTS_OPTION = "--max-page-objects=";
+	private static final int DEFAULT_MAX_PAGE_OBJECTS = 64;
+	//Report of the time of each phase and of the counters of the run, written in the output directory
+	private static final String METRICS_FILE = "metrics.json";
+	//Options of the logs: --log-format=text|json --aggregate-warnings
+	private static final String LOG_FORMAT_OPTION = "--log-format=";
+	private static final String AGGREGATE_WARNINGS_OPTION = "--aggregate-warnings";
+	//Generated files written at the same time, they are printed on all the cores
+	private static final int EMIT_WRITERS = 4;
+	//Option to analyze the files on the parsing threads and to replay them at the same time, not supported in streaming mode
+	private static final String CONCURRENT_OPTION = "--concurrent";
+	//Files replayed at the same time in concurrent mode
+	private static final int REPLAY_THREADS = Runtime.getRuntime().availableProcessors();
+	//Time budget of the decomposition of each file in milliseconds, 0 for no limit: --file-budget-ms=N
+	private static final String FILE_BUDGET_OPTION = "--file-budget-ms=";
+	private static final long DEFAULT_FILE_BUDGET_MILLIS = 0;
+	//Options of a job: --output=dir (default: Output inside the input directory) --normalize --po-prefix=prefix
+	static final String OUTPUT_OPTION = "--output=";
+	private static final String NORMALIZE_OPTION = "--normalize";
+	private static final String PO_PREFIX_OPTION = "--po-prefix=";
 
 	public static void main(String[] args) throws IOException{
+		if(args.length>0 && AssessorDaemon.isDaemonOption(args[0])) {
+			AssessorDaemon.main(args);
+			return;
+		}
+		run(args, System.out, null);
+	}
+	
+	/** Decompose the input with the options of the command line, used by main and by each job of the daemon
+	 * 
+	 * @param args
+	 * @param out receives the messages of the run
+	 * @param parsers threads of the parsers kept by the daemon between the jobs, null to create them for this run.
+	 * The jobs of the daemon can't use --watch
+	 * @throws IOException
+	 */
+	static void run(String[] args, PrintStream out, ExecutorService parsers) throws IOException {
 		boolean normalize = false;
 		String poPrefix = "";
+		String outputDir = null;
+		boolean watch = false;
+		List<String> includes = new ArrayList<>();
+		List<String> excludes = new ArrayList<>();
+		int maxDepth = Integer.MAX_VALUE;
+		boolean streaming = false;
+		int maxPageObjects = DEFAULT_MAX_PAGE_OBJECTS;
+		LogSink.Format logFormat = LogSink.Format.TEXT;
+		boolean aggregateWarnings = false;
+		boolean concurrent = false;
+		long fileBudget = DEFAULT_FILE_BUDGET_MILLIS;
 
-		//String inputDir = args[0];
 		String inputDir = "C:/SeleniumTest";
-		String outputDir = inputDir+"/Output/";
-	
-		File[] matchingFiles = searchFilesToAnalyze(inputDir);
+		for(String arg : args) {
+			if(WATCH_OPTION.equals(arg))
+				watch = true;
+			else if(arg.startsWith(INCLUDE_OPTION))
+				includes.add(arg.substring(INCLUDE_OPTION.length()));
+			else if(arg.startsWith(EXCLUDE_OPTION))
+				excludes.add(arg.substring(EXCLUDE_OPTION.length()));
+			else if(arg.startsWith(MAX_DEPTH_OPTION))
+				maxDepth = Integer.parseInt(arg.substring(MAX_DEPTH_OPTION.length()));
+			else if(STREAMING_OPTION.equals(arg))
+				streaming = true;
+			else if(arg.startsWith(MAX_PAGE_OBJECTS_OPTION))
+				maxPageObjects = Integer.parseInt(arg.substring(MAX_PAGE_OBJECTS_OPTION.length()));
+			else if(arg.startsWith(LOG_FORMAT_OPTION))
+				logFormat = LogSink.Format.valueOf(arg.substring(LOG_FORMAT_OPTION.length()).toUpperCase(Locale.ROOT));
+			else if(AGGREGATE_WARNINGS_OPTION.equals(arg))
+				aggregateWarnings = true;
+			else if(CONCURRENT_OPTION.equals(arg))
+				concurrent = true;
+			else if(arg.startsWith(FILE_BUDGET_OPTION))
+				fileBudget = Long.parseLong(arg.substring(FILE_BUDGET_OPTION.length()));
+			else if(arg.startsWith(OUTPUT_OPTION))
+				outputDir = arg.substring(OUTPUT_OPTION.length());
+			else if(NORMALIZE_OPTION.equals(arg))
+				normalize = true;
+			else if(arg.startsWith(PO_PREFIX_OPTION))
+				poPrefix = arg.substring(PO_PREFIX_OPTION.length());
+			else
+				inputDir = arg;
+		}
+		if(watch && parsers!=null)
+			throw new IllegalArgumentException("The jobs of the daemon can't use "+WATCH_OPTION);
+		if(outputDir==null)
+			outputDir = inputDir+"/Output/";
+		//The output is never searched, also when it is inside the input directory
+		InputDiscovery discovery = new InputDiscovery(Paths.get(inputDir), Paths.get(outputDir), includes, excludes, maxDepth);
 		
-		TreeDecomposer selDecomposer =  new TreeDecomposer(normalize,poPrefix);
+		//In streaming mode the generated units are kept on disk, 0 keeps all of them in memory
+		int spooledPageObjects = streaming ? maxPageObjects : 0;
+		//The unchanged files are replayed from the cache, without parsing them. In streaming mode the cache keeps its entries only on disk
+		DecompositionCache cache = new DecompositionCache(Paths.get(outputDir, CACHE_DIRECTORY), normalize, poPrefix, !streaming);
+		if(streaming && concurrent) {
+			out.println("The concurrent mode is not supported in streaming mode, the files are decomposed in order");
+			concurrent = false;
+		}
+		LogOptions logs = new LogOptions(logFormat, aggregateWarnings);
+		//In watch mode the files are read again only after a change
+		Map<Path,String> knownHashes = watch ? new ConcurrentHashMap<>() : null;
+		decompose(discovery, outputDir, normalize, poPrefix, cache, knownHashes, spooledPageObjects, concurrent, fileBudget, logs, out, parsers);
+		if(watch)
+			watchInput(discovery, outputDir, normalize, poPrefix, cache, knownHashes, spooledPageObjects, concurrent, fileBudget, logs);
+	}
+	
+	/** Wait for the changes in the input directory and decompose the files again
+	 * Only the changed files are read and analyzed, the other files are replayed from the cache (only on disk in streaming mode)
+	 * because the PageObjects depend on all the files in their order. Only the output files with a different content are written
+	 * 
+	 * @param discovery
+	 * @param outputDir
+	 * @param normalize
+	 * @param poPrefix
+	 * @param cache
+	 * @param knownHashes hash of each file read by the previous runs
+	 * @param maxPageObjects
+	 * @param concurrent
+	 * @param fileBudget
+	 * @param logs
+	 * @throws IOException
+	 */
+	private static void watchInput(final InputDiscovery discovery, final String outputDir, final boolean normalize, final String poPrefix, 
+			final DecompositionCache cache, final Map<Path,String> knownHashes, final int maxPageObjects, final boolean concurrent, final long fileBudget, 
+			final LogOptions logs) throws IOException {
+		System.out.println("Watching "+discovery.getRoot()+" for changes");
+		InputWatcher watcher = new InputWatcher(discovery, WATCH_DEBOUNCE_MILLIS);
+		try {
+			watcher.watch(files -> {
+				System.out.println("Changed: "+files);
+				//The changed files are read again, a changed directory could contain any file
+				knownHashes.keySet().removeIf(known -> {
+					for(Path changed : files)
+						if(known.startsWith(changed.toAbsolutePath().normalize()))
+							return true;
+					return false;
+				});
+				try {
+					decompose(discovery, outputDir, normalize, poPrefix, cache, knownHashes, maxPageObjects, concurrent, fileBudget, logs, System.out, null);
+				}catch(IOException | RuntimeException e) {
+					//A file could be still written by the export, the next change will start again
+					System.out.println("Refactoring failed: "+e);
+				}
+			});
+		}catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+	
+	/** Decompose all the files of the input directories and write the new classes
+	 * 
+	 * @param discovery
+	 * @param outputDir
+	 * @param normalize
+	 * @param poPrefix
+	 * @param cache
+	 * @param knownHashes hash of each file read by the previous runs and not changed since then, null to read all the files
+	 * @param maxPageObjects PageObjects kept in memory in streaming mode, 0 to keep all the units in memory
+	 * @param concurrent true to analyze the files on the parsing threads and replay them at the same time
+	 * @param fileBudget time budget of each file in milliseconds, 0 for no limit
+	 * @param logOptions
+	 * @param out receives the messages of the run
+	 * @param parsers threads of the parsers, null to create them for this run
+	 * @throws IOException
+	 */
+	private static void decompose(InputDiscovery discovery, String outputDir, final boolean normalize, final String poPrefix, 
+			final DecompositionCache cache, Map<Path,String> knownHashes, int maxPageObjects, boolean concurrent, final long fileBudget, LogOptions logOptions,
+			PrintStream out, ExecutorService parsers) throws IOException {
+		//Each file is analyzed by its own decomposer, its contribution doesn't depend on the other files
+		LocatorCatalog locators = new LocatorCatalog();
+		Supplier<TreeDecomposer> scratch = concurrent ? () -> {
+			TreeDecomposer decomposer = new TreeDecomposer(normalize, poPrefix, true, null, null, locators);
+			decomposer.setFileBudget(fileBudget);
+			return decomposer;
+		} : null;
+		try(UnitSpool spool = maxPageObjects>0 ? new UnitSpool(Files.createTempDirectory("assessor-spool"), maxPageObjects) : null;
+				LogSink logs = new LogSink(Paths.get(outputDir), logOptions.format, logOptions.aggregate)) {
+			//The parsed files are not used after the analysis, so their statements can be moved
+			TreeDecomposer selDecomposer = new TreeDecomposer(normalize,poPrefix,true,spool,logs,locators);
+			selDecomposer.setFileBudget(fileBudget);
+			decompose(discovery, outputDir, cache, knownHashes, selDecomposer, scratch, logs, out, parsers);
+		}
+	}
+	
+	private static void decompose(InputDiscovery discovery, String outputDir, final DecompositionCache cache, final Map<Path,String> knownHashes,
+			final TreeDecomposer selDecomposer, final Supplier<TreeDecomposer> scratch, LogSink logs, PrintStream out, ExecutorService parsers) throws IOException {
+		final List<String> hashes = new ArrayList<>();
+		final int[] replayed = new int[1];
+		final int[] skipped = new int[1];
+		final RunMetrics metrics = new RunMetrics();
+		//In concurrent mode the files submitted and not yet complete, in file order
+		final Deque<InputFile> submitted = new ArrayDeque<>();
 		
-		for(File file : matchingFiles) {
-			CompilationUnit compilationUnit = recoverCompilationUnit(file);			
-			selDecomposer.analyzeCompilationUnit(compilationUnit);	
+		//The files are parsed in parallel while they are found, but analyzed in the same order as they are found
+		try(InputDiscovery.FileWalk files = discovery.walk(DISCOVERY_THREADS, metrics);
+				//The files are complete in file order, a file that failed has already been undone by the replay
+				TreeDecomposer.ConcurrentReplay replay = scratch!=null ? selDecomposer.replayConcurrently(REPLAY_THREADS, 
+						(index, failure) -> completeFile(submitted.poll(), failure, cache, logs, metrics, hashes, replayed, skipped)) : null) {
+			ParsePipeline.withDefaultSize(parsers).run(files, file -> recoverInputFile(file, cache, knownHashes, scratch, metrics),
+					(file, input) -> {
+						String fileName = discovery.getRoot().relativize(file.toPath().toAbsolutePath().normalize()).toString();
+						if(input.failure!=null) {
+							skipFile(logs, fileName, input.failure);
+							skipped[0]++;
+							return;
+						}
+						input.name = fileName;
+						input.cached = !input.analyzed && input.contribution!=null;
+						input.event = new AssessorEvents.DecomposeFile();
+						input.event.begin();
+						RunMetrics.Measure measure = metrics.start(RunMetrics.Phase.DECOMPOSE);
+						if(replay!=null) {
+							submitted.add(input);
+							replay.submit(input.contribution);
+							input.analyzeNanos += measure.stop();
+							return;
+						}
+						Throwable failure = null;
+						try {
+							if(input.cached)
+								selDecomposer.replayContribution(input.contribution);
+							else if(!input.analyzed)
+								input.contribution = selDecomposer.analyzeAndRecord(input.unit);
+						}catch(RuntimeException | StackOverflowError e) {
+							//The decomposer has already undone the changes of the file
+							failure = e;
+						}
+						input.analyzeNanos += measure.stop();
+						completeFile(input, failure, cache, logs, metrics, hashes, replayed, skipped);
+					});
+			if(replay!=null) {
+				RunMetrics.Measure measure = metrics.start(RunMetrics.Phase.DECOMPOSE);
+				replay.finish();
+				measure.stop();
+			}
 		}
+		cache.retainOnly(hashes);
+		out.println("Files analyzed: "+(hashes.size()-replayed[0])+", replayed from cache: "+replayed[0]+", skipped: "+skipped[0]);
 		
-		writeNewClass(outputDir, selDecomposer);
+		OutputWriter output = new OutputWriter();
+		try(ParallelEmitter emitter = ParallelEmitter.withDefaultSize(output, metrics, EMIT_WRITERS)) {
+			//The units are prepared on this thread while the workers print and write the units already given
+			RunMetrics.Measure emit = metrics.start(RunMetrics.Phase.EMIT);
+			writeNewClass(outputDir, selDecomposer, emitter);
+			emit.stop();
+			emitter.await();
+		}
 		
-		writeLogs(outputDir, selDecomposer);
-		System.out.println("Refactoring complete");
+		//The logs file is counted with the output files, as in the metrics
+		boolean logsGenerated = logs.finish(output)>0;
+		out.println("Files written: "+output.getWritten()+", unchanged: "+output.getSkipped());
+		if(logsGenerated)
+			out.println("Logs generated");
+		writeMetrics(outputDir, selDecomposer, output, metrics, hashes.size()-replayed[0], replayed[0], skipped[0]);
+		out.println("Refactoring complete");
 	}
 
-	private static void writeLogs(String outputDir, TreeDecomposer selDecomposer) throws IOException {
-		if(selDecomposer.getLogs().size()>0) {				
-			FileWriter writer = new FileWriter(outputDir+"logs.txt");
-			for(String row : selDecomposer.getLogs()) {
-				writer.write(row+"\n");			
-			}
-			writer.close();
-			System.out.println("Logs generated");
+	/** Write the JSON report of the run, with the counters of the files and of the decomposer
+	 * 
+	 * @param outputDir
+	 * @param selDecomposer
+	 * @param output
+	 * @param metrics
+	 * @param analyzed
+	 * @param replayed
+	 * @param skipped
+	 * @throws IOException
+	 */
+	private static void writeMetrics(String outputDir, TreeDecomposer selDecomposer, OutputWriter output, RunMetrics metrics, 
+			int analyzed, int replayed, int skipped) throws IOException {
+		metrics.count("filesAnalyzed", analyzed);
+		metrics.count("filesReplayed", replayed);
+		metrics.count("filesSkipped", skipped);
+		metrics.count("filesWritten", output.getWritten());
+		metrics.count("filesUnchanged", output.getSkipped());
+		for(TreeDecomposer.Counter counter : TreeDecomposer.Counter.values())
+			metrics.count(counter.getKey(), selDecomposer.getCount(counter));
+		output.write(Paths.get(outputDir, METRICS_FILE), metrics.toJson());
+	}
+
+	/** Count a file whose changes are kept in the test suite, or skip it if it failed.
+	 * Only the files decomposed are kept in the cache
+	 * 
+	 * @param input
+	 * @param failure error of the decomposition, null if the file is decomposed
+	 * @param cache
+	 * @param logs
+	 * @param metrics
+	 * @param hashes hashes of the files decomposed
+	 * @param replayed
+	 * @param skipped
+	 * @throws IOException if the contribution can't be written in the cache
+	 */
+	private static void completeFile(InputFile input, Throwable failure, DecompositionCache cache, LogSink logs, RunMetrics metrics,
+			List<String> hashes, int[] replayed, int[] skipped) throws IOException {
+		if(failure!=null) {
+			skipFile(logs, input.name, failure);
+			skipped[0]++;
+			return;
+		}
+		hashes.add(input.hash);
+		if(input.cached)
+			replayed[0]++;
+		else
+			cache.put(input.hash, input.contribution);
+		metrics.fileDone(input.name, input.parseNanos, input.analyzeNanos);
+		if(input.event.shouldCommit()) {
+			input.event.file = input.name;
+			input.event.replayed = input.cached;
+			input.event.commit();
 		}
 	}
 
-	private static void writeNewClass(String outputDir, TreeDecomposer selDecomposer) throws IOException {
+	/** Write in the logs that the file is skipped, with the first line of the reason
+	 * 
+	 * @param logs
+	 * @param fileName
+	 * @param reason
+	 */
+	private static void skipFile(LogSink logs, String fileName, Throwable reason) {
+		String message = reason.getMessage()==null ? "" : reason.getMessage().trim();
+		if(message.indexOf('\n')>=0)
+			message = message.substring(0, message.indexOf('\n')).trim();
+		logs.warn(WarningSink.Code.FILE_SKIPPED, "The file "+fileName+" is skipped, none of its changes is kept: "
+				+reason.getClass().getSimpleName()+(message.isEmpty() ? "" : ": "+message));
+	}
+
+	private static void writeNewClass(String outputDir, final TreeDecomposer selDecomposer, final ParallelEmitter emitter) throws IOException {
 		final String poDirectory = "PO/";
-		File directory = new File(outputDir+poDirectory);
-		if (!directory.exists())
-			directory.mkdirs();
-		for(CompilationUnit unit : selDecomposer.getUnits()) {
-			ClassOrInterfaceDeclaration classToWrite = unit.findFirst(ClassOrInterfaceDeclaration.class).get();
-			String fileDirectory = outputDir;
-			if(unit!=selDecomposer.getTestSuiteUnit())
-				fileDirectory+=poDirectory;
+		final Path directory = Paths.get(outputDir);
+		Files.createDirectories(directory.resolve(poDirectory));
+		selDecomposer.emitUnits((className, testSuite, source) -> {
+			//Each generated unit declares only its class
+			Path fileDirectory = directory;
+			if(!testSuite)
+				fileDirectory = fileDirectory.resolve(poDirectory);
 		
-			FileWriter writer = new FileWriter(fileDirectory+classToWrite.getNameAsString()+".java");
-			writer.write(unit.toString());
-			writer.close();
-		}
+			Path target = fileDirectory.resolve(className+".java");
+			//In streaming mode the test suite is too large to keep it in memory
+			if(testSuite && selDecomposer.isStreaming())
+				emitter.submitStreamed(target, source);
+			else
+				emitter.submit(target, source);
+		});
 	}
 
-	private static File[] searchFilesToAnalyze(String inputDir) {
-		File dir = new File(inputDir);
+	/** Read the file and search its contribution in the cache, the file is parsed only if it is not in the cache
+	 * In concurrent mode the parsed file is also analyzed, on the same thread. If the parse or the analysis fails,
+	 * the failure is returned with the file, so the other files are still decomposed
+	 * 
+	 * @param file
+	 * @param cache
+	 * @param knownHashes hash of each file read by the previous runs and not changed since then, null to read all the files
+	 * @param scratch decomposer for the analysis of a single file, null if the file is analyzed by the consumer
+	 * @param metrics
+	 * @return
+	 * @throws IOException
+	 */
+	private static InputFile recoverInputFile(File file, DecompositionCache cache, Map<Path,String> knownHashes, 
+			Supplier<TreeDecomposer> scratch, RunMetrics metrics) throws IOException {
+		AssessorEvents.ParseFile event = new AssessorEvents.ParseFile();
+		event.begin();
+		RunMetrics.Measure measure = metrics.start(RunMetrics.Phase.PARSE);
+		//A file not changed since the previous run is not read again, if its contribution is still in the cache
+		Path path = file.toPath().toAbsolutePath().normalize();
+		String hash = knownHashes!=null ? knownHashes.get(path) : null;
+		Contribution contribution = hash!=null ? cache.get(hash) : null;
+		byte[] content = null;
+		if(contribution==null) {
+			content = Files.readAllBytes(path);
+			hash = DecompositionCache.hash(content);
+			contribution = cache.get(hash);
+			if(knownHashes!=null)
+				knownHashes.put(path, hash);
+		}
+		InputFile input = new InputFile(hash);
+		input.contribution = contribution;
+		if(input.contribution!=null) {
+			try {
+				//The recorded code is parsed here, in parallel, so the consumer only replays the operations
+				input.contribution = input.contribution.resolve();
+			}catch(RuntimeException e) {
+				//The entry is not valid anymore, the file is parsed again
+				input.contribution = null;
+			}
+		}
+		if(input.contribution==null) {
+			if(content==null)
+				content = Files.readAllBytes(path);
+			try {
+				// The TreeDecomposer never resolves a symbol, so the parsers don't need the symbol solver
+				input.unit = PARSERS.parse(new String(content, StandardCharsets.UTF_8));
+			}catch(RuntimeException | StackOverflowError e) {
+				input.failure = e;
+			}
+		}
+		input.parseNanos = measure.stop();
+		if(event.shouldCommit()) {
+			event.file = file.getPath();
+			event.bytes = content!=null ? content.length : file.length();
+			event.cached = input.contribution!=null;
+			event.commit();
+		}
+		if(input.unit!=null && scratch!=null) {
+			RunMetrics.Measure analysis = metrics.start(RunMetrics.Phase.DECOMPOSE);
+			try {
+				input.contribution = scratch.get().analyzeForReplay(input.unit);
+				input.analyzed = true;
+			}catch(RuntimeException | StackOverflowError e) {
+				input.failure = e;
+			}
+			input.unit = null;
+			input.analyzeNanos = analysis.stop();
+		}
+		return input;
+	}
+	
+	/** Format of the logs file and aggregation of the repeated warnings */
+	private static class LogOptions {
+		private final LogSink.Format format;
+		private final boolean aggregate;
 		
-		File[] matchingFiles = dir.listFiles(new FilenameFilter() {
-			public boolean accept(File dir, String fileName) {
-				return fileName.contains(".java");
-			}		
-		});
-		return matchingFiles;
+		LogOptions(LogSink.Format format, boolean aggregate) {
+			this.format = format;
+			this.aggregate = aggregate;
+		}
 	}
 	
-	private static CompilationUnit recoverCompilationUnit(File file) throws IOException {
-		// Set up a minimal type solver that only looks at the classes used to run this sample.
-        CombinedTypeSolver combinedTypeSolver = new CombinedTypeSolver();
-        combinedTypeSolver.add(new ReflectionTypeSolver());
-        
-        // Configure JavaParser to use type resolution
-        JavaSymbolSolver symbolSolver = new JavaSymbolSolver(combinedTypeSolver);
-        StaticJavaParser.getConfiguration().setSymbolResolver(symbolSolver);
-        String fileText = Files.readString(Path.of(file.getAbsolutePath()));
-        
-        // Parse some code
-        return StaticJavaParser.parse(fileText);
+	/** A file to analyze: the contribution found in the cache, or else the parsed unit */
+	private static class InputFile {
+		private final String hash;
+		//Path relative to the input directory
+		private String name;
+		private Contribution contribution;
+		private CompilationUnit unit;
+		//Time to read the file and parse it
+		private long parseNanos;
+		//In concurrent mode, true if the contribution is the result of the analysis of the parsed file
+		private boolean analyzed;
+		//True if the contribution is replayed from the cache
+		private boolean cached;
+		//Error of the parse or of the analysis, the file is skipped
+		private Throwable failure;
+		//Time to analyze the file in concurrent mode, then also to decompose it
+		private long analyzeNanos;
+		private AssessorEvents.DecomposeFile event;
 		
+		InputFile(String hash) {
+			this.hash = hash;
+		}
 	}
 
 }
@@ -0,0 +1,220 @@
+package unige.assessor;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import com.github.javaparser.ParseStart;
+import com.github.javaparser.ast.Node;
+
+/** Everything a single input file gives to the TreeDecomposer, in the order it is given
+ * Each entry is an operation on the decomposer with its arguments as source code, so the entries
+ * don't depend on the files analyzed before: the methods are unified or renamed only when the entries are replayed.
+ * The contribution can be written and read again, to replay a file without parsing it.
+ * The arguments that are source code are parsed by {@link #resolve()}, on the thread that reads the contribution,
+ * so the decomposer only takes the nodes when the entries are replayed. A contribution recorded for another decomposer
+ * already has a copy of the nodes
+ */
+public class Contribution {
+	//The code was printed by JavaParser, it doesn't need to be validated again
+	private static final ParserFactory PARSERS = ParserFactory.withoutValidation();
+
+	/** Operations done on the TreeDecomposer while a file is analyzed */
+	public enum Operation {
+		//import
+		IMPORT,
+		//field of the test class
+		FIELD,
+		//setUp or tearDown method
+		METHOD,
+		//name and annotations of a new test method
+		TEST_METHOD,
+		//statement added to the last test method
+		STATEMENT,
+		//type and content of a comment added to the last test method
+		COMMENT,
+		//name of a PageObject used
+		PAGE_OBJECT,
+		//PageObject, variable, PageObject method, then the pairs value and argument name
+		PAGE_OBJECT_CALL,
+		//PageObject, variable and assert statement
+		ASSERT,
+		//PageObject, variable and block with the assert
+		BLOCK_ASSERT
+	}
+
+	/** A single operation with its arguments */
+	public static final class Entry {
+		private final Operation operation;
+		private final List<String> values;
+		//Parsed arguments not taken yet, null if the entry is not resolved
+		private final Node[] nodes;
+
+		Entry(Operation operation, List<String> values, Node[] nodes) {
+			this.operation = operation;
+			this.values = values;
+			this.nodes = nodes;
+		}
+
+		public Operation getOperation() {
+			return operation;
+		}
+
+		public List<String> getValues() {
+			return values;
+		}
+
+		/** Return the argument parsed by {@link Contribution#resolve()}, the node is given only once
+		 * because the decomposer adds it to its units. If the argument is not parsed, it is parsed now
+		 *
+		 * @param index index of an argument that is source code
+		 * @return
+		 */
+		public Node takeNode(int index) {
+			Node node = nodes==null ? null : nodes[index];
+			if(node==null)
+				return PARSERS.parse(parseStartOf(operation, index), values.get(index));
+			nodes[index] = null;
+			return node;
+		}
+
+		private Entry resolve() {
+			Node[] parsed = new Node[values.size()];
+			for(int i=0;i<parsed.length;i++) {
+				ParseStart<? extends Node> start = parseStartOf(operation, i);
+				if(start!=null)
+					parsed[i] = PARSERS.parse(start, values.get(i));
+			}
+			return new Entry(operation, values, parsed);
+		}
+	}
+
+	private final List<Entry> entries = new ArrayList<>();
+
+	/** Add an operation at the end of the contribution
+	 *
+	 * @param operation
+	 * @param values
+	 */
+	public void add(Operation operation, String... values) {
+		add(operation, values, null);
+	}
+
+	/** Add an operation with the nodes of its arguments, already parsed
+	 *
+	 * @param operation
+	 * @param values
+	 * @param nodes the node of each argument that is source code, null for the other arguments or if there are no nodes
+	 */
+	void add(Operation operation, String[] values, Node[] nodes) {
+		entries.add(new Entry(operation, Collections.unmodifiableList(Arrays.asList(values)), nodes));
+	}
+
+	/** Return a copy of the contribution with all the arguments that are source code already parsed,
+	 * the decomposer takes the nodes when it replays the entries. This contribution is not changed, so it can be shared
+	 * 
+	 * @return
+	 * @throws com.github.javaparser.ParseProblemException if an argument is not valid source code
+	 */
+	public Contribution resolve() {
+		Contribution resolved = new Contribution();
+		for(Entry entry : entries)
+			resolved.entries.add(entry.resolve());
+		return resolved;
+	}
+
+	/** Return what the argument of the operation is, if it is source code
+	 *
+	 * @param operation
+	 * @param index
+	 * @return the start of the parse, null if the argument is a name or a position
+	 */
+	private static ParseStart<? extends Node> parseStartOf(Operation operation, int index) {
+		switch(operation) {
+			case IMPORT:
+				return ParseStart.IMPORT_DECLARATION;
+			case FIELD:
+				return ParseStart.CLASS_BODY;
+			case METHOD:
+				return ParseStart.METHOD_DECLARATION;
+			case TEST_METHOD:
+				return index>0 ? ParseStart.ANNOTATION : null;
+			case STATEMENT:
+				return index==0 ? ParseStart.STATEMENT : null;
+			case PAGE_OBJECT_CALL:
+				if(index==2)
+					return ParseStart.METHOD_DECLARATION;
+				return index>2 && (index-3)%2==0 ? ParseStart.EXPRESSION : null;
+			case ASSERT:
+				return index==2 ? ParseStart.STATEMENT : null;
+			case BLOCK_ASSERT:
+				return index==2 ? ParseStart.BLOCK : null;
+			default:
+				return null;
+		}
+	}
+
+	/**
+	 * @return all the operations in order
+	 */
+	public List<Entry> getEntries() {
+		return Collections.unmodifiableList(entries);
+	}
+
+	/** Write the contribution, the strings are written as UTF-8 without length limit
+	 *
+	 * @param output
+	 * @throws IOException
+	 */
+	public void writeTo(DataOutputStream output) throws IOException {
+		output.writeInt(entries.size());
+		for(Entry entry : entries) {
+			output.writeUTF(entry.operation.name());
+			output.writeInt(entry.values.size());
+			for(String value : entry.values) {
+				byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+				output.writeInt(bytes.length);
+				output.write(bytes);
+			}
+		}
+	}
+
+	/** Read a contribution written by {@link #writeTo(DataOutputStream)}
+	 *
+	 * @param input
+	 * @return
+	 * @throws IOException if the data is truncated or it contains an unknown operation
+	 */
+	public static Contribution readFrom(DataInputStream input) throws IOException {
+		Contribution contribution = new Contribution();
+		int size = readSize(input);
+		for(int i=0;i<size;i++) {
+			Operation operation;
+			try {
+				operation = Operation.valueOf(input.readUTF());
+			}catch(IllegalArgumentException e) {
+				throw new IOException("Unknown operation in the contribution", e);
+			}
+			String[] values = new String[readSize(input)];
+			for(int k=0;k<values.length;k++) {
+				byte[] bytes = new byte[readSize(input)];
+				input.readFully(bytes);
+				values[k] = new String(bytes, StandardCharsets.UTF_8);
+			}
+			contribution.add(operation, values);
+		}
+		return contribution;
+	}
+
+	private static int readSize(DataInputStream input) throws IOException {
+		int size = input.readInt();
+		if(size<0)
+			throw new IOException("Invalid size in the contribution: "+size);
+		return size;
+	}
+}
@@ -0,0 +1,250 @@
+package unige.assessor;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Stream;
+
+/** Cache on disk of the contribution of each input file, by hash of the file content
+ * An entry is valid only for the same settings of the TreeDecomposer and the same version of the tool:
+ * when they change all the entries are removed. The settings are written in a properties file in the same directory.
+ * The entries read or written are also kept in memory, so a cache used for more runs reads each entry only once.
+ * In streaming mode the entries are only written through to disk, so the memory doesn't grow with the number of files
+ */
+public class DecompositionCache {
+	private static final String SETTINGS_FILE = "cache.properties";
+	private static final String ENTRY_SUFFIX = ".contribution";
+	//The classes of this package, and of its sub packages, decide the content of a contribution: a change in any of them is a new version of the tool
+	private static final String VERSIONED_PACKAGE = DecompositionCache.class.getPackage().getName().replace('.', '/')+"/";
+	private static final String CLASS_SUFFIX = ".class";
+
+	private final Path directory;
+	//Entries already read or written, the parser threads read them concurrently
+	private final Map<String,Contribution> loaded = new ConcurrentHashMap<>();
+	//False to read the entries from disk every time they are requested
+	private final boolean keepInMemory;
+
+	/** Open the cache in the directory, the entries written with different settings or version are removed
+	 *
+	 * @param directory
+	 * @param normalize
+	 * @param poPrefix
+	 * @throws IOException
+	 */
+	public DecompositionCache(Path directory, boolean normalize, String poPrefix) throws IOException {
+		this(directory, normalize, poPrefix, true);
+	}
+
+	/** Open the cache in the directory, the entries written with different settings or version are removed
+	 *
+	 * @param directory
+	 * @param normalize
+	 * @param poPrefix
+	 * @param keepInMemory false to keep no entry in memory, for the streaming mode
+	 * @throws IOException
+	 */
+	public DecompositionCache(Path directory, boolean normalize, String poPrefix, boolean keepInMemory) throws IOException {
+		this.directory = directory;
+		this.keepInMemory = keepInMemory;
+		Files.createDirectories(directory);
+		Properties settings = new Properties();
+		settings.setProperty("version", toolVersion());
+		settings.setProperty("normalize", String.valueOf(normalize));
+		settings.setProperty("poPrefix", poPrefix);
+		if(!settings.equals(readSettings())) {
+			removeEntries(new HashSet<String>());
+			try(Writer writer = Files.newBufferedWriter(directory.resolve(SETTINGS_FILE), StandardCharsets.UTF_8)) {
+				settings.store(writer, "Settings of the decomposition cache");
+			}
+		}
+	}
+
+	private Properties readSettings() throws IOException {
+		Path file = directory.resolve(SETTINGS_FILE);
+		if(!Files.isRegularFile(file))
+			return null;
+		Properties settings = new Properties();
+		try(Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+			settings.load(reader);
+		}
+		return settings;
+	}
+
+	/** Return the contribution of the file with this hash
+	 *
+	 * @param hash
+	 * @return the contribution or null if it is not in the cache or it can't be read
+	 */
+	public Contribution get(String hash) {
+		Contribution contribution = loaded.get(hash);
+		if(contribution!=null)
+			return contribution;
+		Path file = entryFile(hash);
+		if(!Files.isRegularFile(file))
+			return null;
+		try(DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+			contribution = Contribution.readFrom(input);
+			if(keepInMemory)
+				loaded.put(hash, contribution);
+			return contribution;
+		}catch(IOException e) {
+			//A damaged entry is only a miss, it will be written again
+			return null;
+		}
+	}
+
+	/** Save the contribution of the file with this hash
+	 *
+	 * @param hash
+	 * @param contribution
+	 * @throws IOException
+	 */
+	public void put(String hash, Contribution contribution) throws IOException {
+		Path file = entryFile(hash);
+		Path temp = Files.createTempFile(directory, hash, ".tmp");
+		try {
+			try(DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+				contribution.writeTo(output);
+			}
+			Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+		}finally {
+			Files.deleteIfExists(temp);
+		}
+		if(keepInMemory)
+			loaded.put(hash, contribution);
+	}
+
+	/** Remove all the entries except the ones of these hashes, so the cache contains only the files still in input
+	 *
+	 * @param hashes
+	 * @throws IOException
+	 */
+	public void retainOnly(Collection<String> hashes) throws IOException {
+		Set<String> keep = new HashSet<>(hashes);
+		loaded.keySet().retainAll(keep);
+		removeEntries(keep);
+	}
+
+	private void removeEntries(Set<String> keep) throws IOException {
+		try(DirectoryStream<Path> entries = Files.newDirectoryStream(directory, "*"+ENTRY_SUFFIX)) {
+			for(Path entry : entries) {
+				String name = entry.getFileName().toString();
+				if(!keep.contains(name.substring(0, name.length()-ENTRY_SUFFIX.length())))
+					Files.delete(entry);
+			}
+		}
+	}
+
+	private Path entryFile(String hash) {
+		return directory.resolve(hash+ENTRY_SUFFIX);
+	}
+
+	/** Hash of the content of a file, as hexadecimal string
+	 *
+	 * @param content
+	 * @return
+	 */
+	public static String hash(byte[] content) {
+		return toHex(newDigest().digest(content));
+	}
+
+	/** The version is the hash of the names and of the bytecode of all the classes of the package, also the inner classes.
+	 * A class added later that records or replays an operation is part of the version without listing it
+	 *
+	 * @return
+	 * @throws IOException
+	 */
+	static String toolVersion() throws IOException {
+		MessageDigest digest = newDigest();
+		ClassLoader loader = DecompositionCache.class.getClassLoader();
+		for(String versioned : versionedClasses()) {
+			digest.update(versioned.getBytes(StandardCharsets.UTF_8));
+			try(InputStream input = loader.getResourceAsStream(versioned)) {
+				if(input==null)
+					throw new IOException("Cannot read the class "+versioned);
+				byte[] buffer = new byte[8192];
+				int read;
+				while((read = input.read(buffer))!=-1)
+					digest.update(buffer, 0, read);
+			}
+		}
+		return toHex(digest.digest());
+	}
+
+	/** Return the resource names of the classes of the package, sorted, from the directory or the jar the tool is loaded from
+	 *
+	 * @return
+	 * @throws IOException
+	 */
+	static SortedSet<String> versionedClasses() throws IOException {
+		Path location;
+		try {
+			location = Paths.get(DecompositionCache.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+		}catch(URISyntaxException | RuntimeException e) {
+			throw new IOException("Cannot find the classes of the tool", e);
+		}
+		SortedSet<String> classes = new TreeSet<>();
+		if(Files.isDirectory(location)) {
+			Path root = location;
+			Path directory = root.resolve(VERSIONED_PACKAGE);
+			try(Stream<Path> files = Files.walk(directory)) {
+				files.filter(file -> file.getFileName().toString().endsWith(CLASS_SUFFIX))
+					.forEach(file -> classes.add(root.relativize(file).toString().replace(File.separatorChar, '/')));
+			}
+		}else {
+			try(JarFile jar = new JarFile(location.toFile())) {
+				Enumeration<JarEntry> entries = jar.entries();
+				while(entries.hasMoreElements()) {
+					String name = entries.nextElement().getName();
+					if(name.startsWith(VERSIONED_PACKAGE) && name.endsWith(CLASS_SUFFIX))
+						classes.add(name);
+				}
+			}
+		}
+		if(classes.isEmpty())
+			throw new IOException("No class of the tool found in "+location);
+		return classes;
+	}
+
+	private static String toHex(byte[] bytes) {
+		StringBuilder hex = new StringBuilder(bytes.length*2);
+		for(byte value : bytes)
+			hex.append(String.format("%02x", value));
+		return hex.toString();
+	}
+
+	private static MessageDigest newDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			//Every Java platform must support SHA-256
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -0,0 +1,286 @@
+package unige.assessor;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/** Generate synthetic Selenium IDE JUnit exports with the {ASSESSOR} delimiters, to test the tool on large suites
+ * The same seed and settings always give the same files. The tests use all the shapes handled by the TreeDecomposer:
+ * PageObject methods with clicks, sendKeys and xpath with values, PageObject methods already declared with the same body
+ * or with the same name and a different body, empty methods, single asserts, block asserts with a call or with an assert statement,
+ * asserts without a locator, blocks without asserts, statements that are not expressions and comments
+ */
+public class ExportGenerator {
+	private static final String HEADER = "// Generated by Selenium IDE\n"
+			+ "import org.junit.Test;\n"
+			+ "import org.junit.Before;\n"
+			+ "import org.junit.After;\n"
+			+ "import static org.junit.Assert.*;\n"
+			+ "import static org.hamcrest.CoreMatchers.is;\n"
+			+ "import static org.hamcrest.core.IsNot.not;\n"
+			+ "import org.openqa.selenium.By;\n"
+			+ "import org.openqa.selenium.WebDriver;\n"
+			+ "import org.openqa.selenium.firefox.FirefoxDriver;\n"
+			+ "import org.openqa.selenium.WebElement;\n"
+			+ "import org.openqa.selenium.JavascriptExecutor;\n"
+			+ "import org.openqa.selenium.Keys;\n"
+			+ "import java.util.*;\n";
+	//Placeholder for the values written in the sendKeys and in the xpath, they change at each use of the same body
+	private static final String VALUE = "{value}";
+	private static final String[] WORDS = {"admin", "secret", "Listed", "Home", "Welcome", "Open", "Closed", "Row", "Next", "Search"};
+
+	private final long seed;
+	private final int pageObjects;
+	private final int methodsPerPageObject;
+	private final double duplicateRatio;
+	private final double sendKeysRatio;
+	private final double xpathRatio;
+	private final double assertRatio;
+	private final Random random;
+	//For each PageObject, the bodies of the methods already generated
+	private final List<List<List<String>>> bodies = new ArrayList<>();
+
+	/**
+	 * @param seed
+	 * @param pageObjects number of PageObjects used by the tests
+	 * @param methodsPerPageObject number of method names used for each PageObject
+	 * @param duplicateRatio probability that a PageObject method has the body of a method already generated for the same PageObject
+	 * @param sendKeysRatio probability that an instruction of a PageObject method is a sendKeys
+	 * @param xpathRatio probability that an instruction of a PageObject method is a click on an xpath with a value
+	 * @param assertRatio probability that a step of a test is an assert
+	 */
+	public ExportGenerator(long seed, int pageObjects, int methodsPerPageObject, double duplicateRatio,
+			double sendKeysRatio, double xpathRatio, double assertRatio) {
+		if(pageObjects<1 || methodsPerPageObject<1)
+			throw new IllegalArgumentException("At least one PageObject with one method is needed");
+		if(sendKeysRatio+xpathRatio>1)
+			throw new IllegalArgumentException("The sum of the sendKeys and xpath ratios can't be more than 1");
+		this.seed = seed;
+		this.pageObjects = pageObjects;
+		this.methodsPerPageObject = methodsPerPageObject;
+		this.duplicateRatio = duplicateRatio;
+		this.sendKeysRatio = sendKeysRatio;
+		this.xpathRatio = xpathRatio;
+		this.assertRatio = assertRatio;
+		this.random = new Random(seed);
+		for(int i=0;i<pageObjects;i++)
+			bodies.add(new ArrayList<>());
+	}
+
+	/** Generate the tests as Selenium IDE does, one class for each test, the names keep the order of the tests
+	 *
+	 * @param directory
+	 * @param tests
+	 * @throws IOException
+	 */
+	public void generate(Path directory, int tests) throws IOException {
+		Files.createDirectories(directory);
+		int digits = String.valueOf(Math.max(tests-1, 0)).length();
+		for(int i=0;i<tests;i++) {
+			String className = String.format("Test%0"+digits+"d", i);
+			Files.write(directory.resolve(className+".java"), generateClass(className, 1).getBytes(StandardCharsets.UTF_8));
+		}
+	}
+
+	/** Generate a single class with the number of tests
+	 *
+	 * @param className
+	 * @param tests
+	 * @return the source code
+	 */
+	public String generateClass(String className, int tests) {
+		StringBuilder source = new StringBuilder(HEADER);
+		source.append("public class ").append(className).append(" {\n");
+		source.append("  private WebDriver driver;\n");
+		source.append("  private Map<String, Object> vars;\n");
+		source.append("  JavascriptExecutor js;\n");
+		source.append("  @Before\n  public void setUp() {\n");
+		line(source, "driver = new FirefoxDriver();");
+		line(source, "js = (JavascriptExecutor) driver;");
+		line(source, "vars = new HashMap<String, Object>();");
+		source.append("  }\n");
+		source.append("  @After\n  public void tearDown() {\n");
+		line(source, "driver.quit();");
+		source.append("  }\n");
+		for(int i=0;i<tests;i++) {
+			String testName = Character.toLowerCase(className.charAt(0))+className.substring(1)+(tests>1 ? "_"+i : "");
+			source.append("  @Test\n  public void ").append(testName).append("() {\n");
+			generateTest(source);
+			source.append("  }\n");
+		}
+		return source.append("}\n").toString();
+	}
+
+	private void generateTest(StringBuilder source) {
+		line(source, "driver.get(\"http://localhost/\");");
+		int steps = 3+random.nextInt(6);
+		for(int i=0;i<steps;i++) {
+			int pageObject = random.nextInt(pageObjects);
+			if(random.nextDouble()<assertRatio)
+				generateAssert(source, pageObject);
+			else
+				generatePageObjectMethod(source, pageObject);
+			if(random.nextInt(10)==0) {
+				line(source, "System.out.println(\"{ASSESSOR}backToMain\");");
+				line(source, "driver.navigate().refresh();");
+			}
+		}
+		if(random.nextInt(4)==0)
+			line(source, "{\n      driver.switchTo().defaultContent();\n    }");
+		line(source, "driver.close();");
+		if(random.nextInt(4)==0)
+			line(source, "// done");
+	}
+
+	/** A delimiter followed by the instructions of a PageObject method, the body is new or one of the bodies already generated
+	 *
+	 * @param source
+	 * @param pageObject
+	 */
+	private void generatePageObjectMethod(StringBuilder source, int pageObject) {
+		delimiter(source, pageObject, "method"+random.nextInt(methodsPerPageObject));
+		List<List<String>> pageObjectBodies = bodies.get(pageObject);
+		List<String> body;
+		if(!pageObjectBodies.isEmpty() && random.nextDouble()<duplicateRatio) {
+			body = pageObjectBodies.get(random.nextInt(pageObjectBodies.size()));
+		}else {
+			body = generateBody(pageObject, pageObjectBodies.size());
+			pageObjectBodies.add(body);
+		}
+		for(String instruction : body)
+			line(source, instruction.replace(VALUE, WORDS[random.nextInt(WORDS.length)]+random.nextInt(100)));
+	}
+
+	/** Generate the instructions of a body, each body has its own random so it doesn't depend on the order of the tests
+	 *
+	 * @param pageObject
+	 * @param index
+	 * @return
+	 */
+	private List<String> generateBody(int pageObject, int index) {
+		Random bodyRandom = new Random(seed*31+pageObject*100003L+index);
+		List<String> body = new ArrayList<>();
+		int instructions = 1+bodyRandom.nextInt(4);
+		for(int i=0;i<instructions;i++) {
+			String element = "element"+bodyRandom.nextInt(20);
+			double kind = bodyRandom.nextDouble();
+			if(kind<sendKeysRatio) {
+				body.add("driver.findElement(By.id(\""+element+"\")).click();");
+				body.add("driver.findElement(By.id(\""+element+"\")).sendKeys(\""+VALUE+"\");");
+				if(bodyRandom.nextInt(4)==0)
+					body.add("driver.findElement(By.id(\""+element+"\")).sendKeys(Keys.ENTER);");
+			}else if(kind<sendKeysRatio+xpathRatio) {
+				if(bodyRandom.nextBoolean())
+					body.add("driver.findElement(By.xpath(\"//input[@name=\\'"+element+"\\' and @value=\\'"+VALUE+"\\']\")).click();");
+				else
+					body.add("driver.findElement(By.xpath(\"//td[. =\\'"+VALUE+"\\']\")).click();");
+			}else {
+				switch(bodyRandom.nextInt(4)) {
+					case 0:
+						body.add("driver.findElement(By.cssSelector(\"."+element+" > a\")).click();");
+						break;
+					case 1:
+						//A block without asserts
+						body.add("{\n      driver.findElement(By.id(\""+element+"\")).click();\n      driver.findElement(By.linkText(\"Next\")).click();\n    }");
+						break;
+					case 2:
+						//A statement that is not an expression
+						body.add("for (int i = 0; i < 2; i++) {\n      driver.findElement(By.id(\""+element+"\")).click();\n    }");
+						break;
+					default:
+						body.add("driver.findElement(By.id(\""+element+"\")).click();");
+				}
+			}
+		}
+		return body;
+	}
+
+	/** A delimiter followed by an assert, the PageObject method before the assert is empty and is discarded
+	 *
+	 * @param source
+	 * @param pageObject
+	 */
+	private void generateAssert(StringBuilder source, int pageObject) {
+		delimiter(source, pageObject, "check"+random.nextInt(methodsPerPageObject));
+		int element = random.nextInt(10);
+		switch(random.nextInt(6)) {
+			case 0:
+				line(source, "assertThat(driver.findElement(By.id(\"message"+element+"\")).getText(), is(\"Welcome\"));");
+				break;
+			case 1:
+				line(source, "assertEquals(driver.findElement(By.id(\"label"+element+"\")).getText(), \"Home\");");
+				break;
+			case 2:
+				line(source, "assertTrue(driver.findElement(By.id(\"flag"+element+"\")).isDisplayed());");
+				break;
+			case 3:
+				line(source, "{\n      String value = driver.findElement(By.id(\"field"+element+"\")).getAttribute(\"value\");\n"
+						+ "      assertThat(value, is(\""+WORDS[random.nextInt(WORDS.length)]+"\"));\n    }");
+				break;
+			case 4:
+				line(source, "{\n      List<WebElement> elements = driver.findElements(By.xpath(\"//tr[@class=\\'row"+element+"\\']\"));\n"
+						+ "      assert(elements.size() > 0);\n    }");
+				break;
+			default:
+				line(source, "assertEquals(vars.get(\"count\").toString(), \""+element+"\");");
+		}
+	}
+
+	private static void delimiter(StringBuilder source, int pageObject, String method) {
+		line(source, "System.out.println(\"{ASSESSOR}:Page"+pageObject+":"+method+"\");");
+	}
+
+	private static void line(StringBuilder source, String instruction) {
+		source.append("    ").append(instruction).append('\n');
+	}
+
+	/** Generate the exports in a directory:
+	 * ExportGenerator directory [--tests=N] [--page-objects=N] [--methods=N] [--duplicates=R] [--send-keys=R] [--xpath=R] [--asserts=R] [--seed=N]
+	 *
+	 * @param args
+	 * @throws IOException
+	 */
+	public static void main(String[] args) throws IOException {
+		String directory = null;
+		int tests = 100;
+		int pageObjects = 10;
+		int methods = 5;
+		double duplicates = 0.5;
+		double sendKeys = 0.3;
+		double xpath = 0.2;
+		double asserts = 0.3;
+		long seed = 1;
+		for(String arg : args) {
+			String value = arg.substring(arg.indexOf('=')+1);
+			if(arg.startsWith("--tests="))
+				tests = Integer.parseInt(value);
+			else if(arg.startsWith("--page-objects="))
+				pageObjects = Integer.parseInt(value);
+			else if(arg.startsWith("--methods="))
+				methods = Integer.parseInt(value);
+			else if(arg.startsWith("--duplicates="))
+				duplicates = Double.parseDouble(value);
+			else if(arg.startsWith("--send-keys="))
+				sendKeys = Double.parseDouble(value);
+			else if(arg.startsWith("--xpath="))
+				xpath = Double.parseDouble(value);
+			else if(arg.startsWith("--asserts="))
+				asserts = Double.parseDouble(value);
+			else if(arg.startsWith("--seed="))
+				seed = Long.parseLong(value);
+			else
+				directory = arg;
+		}
+		if(directory==null) {
+			System.out.println("Usage: ExportGenerator directory [--tests=N] [--page-objects=N] [--methods=N] [--duplicates=R] [--send-keys=R] [--xpath=R] [--asserts=R] [--seed=N]");
+			return;
+		}
+		new ExportGenerator(seed, pageObjects, methods, duplicates, sendKeys, xpath, asserts).generate(Paths.get(directory), tests);
+		System.out.println("Generated "+tests+" tests in "+directory);
+	}
+}
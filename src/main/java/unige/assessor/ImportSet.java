@@ -0,0 +1,126 @@
+package unige.assessor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.ImportDeclaration;
+import com.github.javaparser.ast.NodeList;
+
+/** Ordered set of imports with hash membership
+ * The imports are not added one by one to the CompilationUnit, but applied in a single pass with {@link #apply(CompilationUnit, List)}
+ */
+public class ImportSet {
+	//Imports in the order they are found
+	private final List<ImportDeclaration> imports = new ArrayList<>();
+	//Same imports, for the membership check
+	private final Set<ImportDeclaration> members = new HashSet<>();
+
+	/** Add the import if it is not already in the set
+	 *
+	 * @param importDecl
+	 * @return true if the import is new
+	 */
+	public boolean add(ImportDeclaration importDecl) {
+		if(!members.add(importDecl))
+			return false;
+		imports.add(importDecl);
+		return true;
+	}
+
+	/**
+	 * @param importDecl
+	 * @return true if the import is already in the set
+	 */
+	public boolean contains(ImportDeclaration importDecl) {
+		return members.contains(importDecl);
+	}
+
+	/**
+	 * @return number of imports in the set
+	 */
+	public int size() {
+		return imports.size();
+	}
+
+	/** Remove the imports added after the first count, used to undo the imports of a file
+	 *
+	 * @param count
+	 */
+	public void truncate(int count) {
+		List<ImportDeclaration> removed = imports.subList(count, imports.size());
+		members.removeAll(removed);
+		removed.clear();
+	}
+
+	/** Return the first imports added to the set, in order
+	 * Because the set only grows while the files are analyzed, the same prefix always contains the same imports
+	 *
+	 * @param count
+	 * @return
+	 */
+	public List<ImportDeclaration> firstImports(int count) {
+		return Collections.unmodifiableList(imports.subList(0, count));
+	}
+
+	/** Return all the imports, in order
+	 *
+	 * @return
+	 */
+	public List<ImportDeclaration> getImports() {
+		return Collections.unmodifiableList(imports);
+	}
+
+	/** Replace the imports of the unit with the imports in the list, in a single pass
+	 * The result is the same of calling CompilationUnit.addImport for each element of the list on a unit without imports:
+	 * an asterisk import removes the imports of the same package, implicit imports (java.lang and the package of the unit)
+	 * are skipped, and an import already declared or covered by an asterisk import is not added again
+	 *
+	 * @param unit
+	 * @param importsToApply
+	 */
+	public static void apply(CompilationUnit unit, List<ImportDeclaration> importsToApply) {
+		String unitPackage = unit.getPackageDeclaration().isPresent() ? unit.getPackageDeclaration().get().getNameAsString() : null;
+		Set<ImportDeclaration> result = new LinkedHashSet<>();
+		Map<String,List<ImportDeclaration>> byPackage = new HashMap<>();
+		Set<String> asteriskPackages = new HashSet<>();
+		for(ImportDeclaration importDecl : importsToApply) {
+			String packageName = packageOf(importDecl);
+			if(importDecl.isAsterisk()) {
+				List<ImportDeclaration> removed = byPackage.remove(packageName);
+				if(removed!=null)
+					result.removeAll(removed);
+				asteriskPackages.remove(packageName);
+			}
+			if(isImplicit(packageName, unitPackage))
+				continue;
+			if(asteriskPackages.contains(packageName) || !result.add(importDecl))
+				continue;
+			byPackage.computeIfAbsent(packageName, key -> new ArrayList<>()).add(importDecl);
+			if(importDecl.isAsterisk())
+				asteriskPackages.add(packageName);
+		}
+		unit.setImports(new NodeList<>(result));
+	}
+
+	/** Return the package of the import: the name itself for an asterisk import, else the qualifier of the name
+	 *
+	 * @param importDecl
+	 * @return the package or null if the name has no qualifier
+	 */
+	private static String packageOf(ImportDeclaration importDecl) {
+		if(importDecl.isAsterisk())
+			return importDecl.getNameAsString();
+		return importDecl.getName().getQualifier().isPresent() ? importDecl.getName().getQualifier().get().asString() : null;
+	}
+
+	private static boolean isImplicit(String packageName, String unitPackage) {
+		return packageName==null || "java.lang".equals(packageName) || packageName.equals(unitPackage);
+	}
+}
@@ -0,0 +1,242 @@
+package unige.assessor;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileSystem;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/** Search the files to analyze in the input directory and in its sub directories
+ * The files are selected with include and exclude glob patterns, matched on the path relative to the input directory.
+ * An excluded directory is not visited at all, and the output directory of the tool is always excluded.
+ * The directories are listed in parallel, but the files are always returned in the same order: the files of a directory
+ * sorted by name, then the sub directories sorted by name
+ */
+public class InputDiscovery {
+	//Default pattern of the files to analyze, a glob that matches the .java files at any depth
+	public static final String DEFAULT_INCLUDE = "**.java";
+
+	private final Path root;
+	private final Path skipDirectory;
+	private final List<PathMatcher> includes = new ArrayList<>();
+	private final List<PathMatcher> excludes = new ArrayList<>();
+	private final int maxDepth;
+
+	/**
+	 * @param root input directory
+	 * @param skipDirectory directory never visited, usually the output directory. Can be null
+	 * @param includes glob patterns of the files to analyze, if empty {@link #DEFAULT_INCLUDE} is used
+	 * @param excludes glob patterns of the files and directories to skip
+	 * @param maxDepth max depth of the files, 1 means only the files of the input directory
+	 */
+	public InputDiscovery(Path root, Path skipDirectory, List<String> includes, List<String> excludes, int maxDepth) {
+		if(maxDepth<1)
+			throw new IllegalArgumentException("The max depth must be at least 1");
+		this.root = root.toAbsolutePath().normalize();
+		this.skipDirectory = skipDirectory==null ? null : skipDirectory.toAbsolutePath().normalize();
+		FileSystem fileSystem = root.getFileSystem();
+		for(String include : includes.isEmpty() ? Collections.singletonList(DEFAULT_INCLUDE) : includes)
+			this.includes.add(fileSystem.getPathMatcher("glob:"+include));
+		for(String exclude : excludes)
+			this.excludes.add(fileSystem.getPathMatcher("glob:"+exclude));
+		this.maxDepth = maxDepth;
+	}
+
+	/**
+	 * @return the input directory
+	 */
+	public Path getRoot() {
+		return root;
+	}
+
+	/** Check if the file is one of the files to analyze, without checking that it exists
+	 *
+	 * @param file
+	 * @return
+	 */
+	public boolean isFileToAnalyze(Path file) {
+		Path absolute = file.toAbsolutePath().normalize();
+		if(!absolute.startsWith(root) || absolute.equals(root) || isInSkipDirectory(absolute))
+			return false;
+		Path relative = root.relativize(absolute);
+		if(relative.getNameCount()>maxDepth || matches(excludes, relative))
+			return false;
+		return matches(includes, relative);
+	}
+
+	/** Check if the directory must be visited
+	 *
+	 * @param directory
+	 * @return
+	 */
+	public boolean isDirectoryToVisit(Path directory) {
+		Path absolute = directory.toAbsolutePath().normalize();
+		if(absolute.equals(root))
+			return true;
+		if(!absolute.startsWith(root) || isInSkipDirectory(absolute))
+			return false;
+		Path relative = root.relativize(absolute);
+		//The files inside the directory are one level deeper
+		return relative.getNameCount()<maxDepth && !matches(excludes, relative);
+	}
+
+	private boolean isInSkipDirectory(Path absolute) {
+		return skipDirectory!=null && absolute.startsWith(skipDirectory);
+	}
+
+	private static boolean matches(List<PathMatcher> matchers, Path relative) {
+		for(PathMatcher matcher : matchers)
+			if(matcher.matches(relative))
+				return true;
+		return false;
+	}
+
+	/** Start the search of the files, the files are found while they are read from the walk
+	 * The walk must be closed to stop the threads that list the directories
+	 *
+	 * @param threads number of directories listed at the same time
+	 * @return
+	 */
+	public FileWalk walk(int threads) {
+		return walk(threads, null);
+	}
+
+	/** Start the search of the files, the listing of each directory is measured as discovery phase
+	 *
+	 * @param threads number of directories listed at the same time
+	 * @param metrics metrics of the run, null to not measure the search
+	 * @return
+	 */
+	public FileWalk walk(int threads, RunMetrics metrics) {
+		return new FileWalk(threads, metrics);
+	}
+
+	/** List a single directory, with the attributes read by the same visit
+	 *
+	 * @param directory
+	 * @return
+	 * @throws IOException
+	 */
+	private Listing list(Path directory) throws IOException {
+		final Listing listing = new Listing();
+		Files.walkFileTree(directory, EnumSet.noneOf(FileVisitOption.class), 1, new SimpleFileVisitor<Path>() {
+			@Override
+			public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+				//With depth 1 also the sub directories are visited as files
+				if(attributes.isDirectory()) {
+					if(isDirectoryToVisit(file))
+						listing.directories.add(file);
+				}else if(attributes.isRegularFile() && isFileToAnalyze(file)) {
+					listing.files.add(file.toFile());
+				}
+				return FileVisitResult.CONTINUE;
+			}
+		});
+		Collections.sort(listing.files);
+		Collections.sort(listing.directories);
+		return listing;
+	}
+
+	private static class Listing {
+		private final List<File> files = new ArrayList<>();
+		private final List<Path> directories = new ArrayList<>();
+	}
+
+	/** Iterator over the files found, the sub directories are listed in advance by a pool of threads
+	 * An error reading a directory is thrown as UncheckedIOException
+	 */
+	public class FileWalk implements Iterator<File>, Closeable {
+		private final ExecutorService pool;
+		//Directories still to read, in visit order: the first is the next one
+		private final Deque<Future<Listing>> directories = new ArrayDeque<>();
+		private final Deque<File> files = new ArrayDeque<>();
+		private final RunMetrics metrics;
+
+		private FileWalk(int threads, RunMetrics metrics) {
+			this.metrics = metrics;
+			pool = Executors.newFixedThreadPool(Math.max(1, threads), new DiscoveryThreadFactory());
+			directories.push(submit(root));
+		}
+
+		private Future<Listing> submit(final Path directory) {
+			return pool.submit(() -> {
+				if(metrics==null)
+					return list(directory);
+				RunMetrics.Measure measure = metrics.start(RunMetrics.Phase.DISCOVERY);
+				try {
+					return list(directory);
+				}finally {
+					measure.stop();
+				}
+			});
+		}
+
+		@Override
+		public boolean hasNext() {
+			while(files.isEmpty() && !directories.isEmpty()) {
+				Listing listing = waitFor(directories.pop());
+				//Pushed in reverse order, so the first sub directory is visited first
+				for(int i=listing.directories.size()-1;i>=0;i--)
+					directories.push(submit(listing.directories.get(i)));
+				files.addAll(listing.files);
+			}
+			return !files.isEmpty();
+		}
+
+		@Override
+		public File next() {
+			if(!hasNext())
+				throw new NoSuchElementException();
+			return files.poll();
+		}
+
+		private Listing waitFor(Future<Listing> listing) {
+			try {
+				return listing.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new UncheckedIOException(new IOException("Interrupted while listing the input", e));
+			} catch (ExecutionException e) {
+				if(e.getCause() instanceof IOException)
+					throw new UncheckedIOException((IOException) e.getCause());
+				throw new UncheckedIOException(new IOException("Cannot list the input", e.getCause()));
+			}
+		}
+
+		@Override
+		public void close() {
+			pool.shutdownNow();
+		}
+	}
+
+	private static class DiscoveryThreadFactory implements ThreadFactory {
+		private final AtomicInteger count = new AtomicInteger();
+
+		public Thread newThread(Runnable task) {
+			Thread thread = new Thread(task, "assessor-discovery-"+count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
@@ -0,0 +1,119 @@
+package unige.assessor;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/** Watch the input directories and call the listener when the input files change
+ * The events are collected until no new event arrives for the debounce time, so a Selenium IDE export
+ * that writes many files is seen as a single change. The directories visited by the discovery are watched,
+ * also the ones created while the watcher is running
+ */
+public class InputWatcher {
+
+	/** Receive the files changed after a burst of events */
+	public interface ChangeListener {
+		void changed(Set<Path> files) throws IOException;
+	}
+
+	private final InputDiscovery discovery;
+	private final long debounceMillis;
+	//Directory of each registered key, the events contain only the name of the file
+	private final Map<WatchKey,Path> directories = new HashMap<>();
+
+	/**
+	 * @param discovery the directories and the files to watch
+	 * @param debounceMillis time without events before the listener is called
+	 */
+	public InputWatcher(InputDiscovery discovery, long debounceMillis) {
+		this.discovery = discovery;
+		this.debounceMillis = debounceMillis;
+	}
+
+	/** Watch the directories until the thread is interrupted
+	 *
+	 * @param listener
+	 * @throws IOException if the input directory can't be watched anymore, or the listener fails
+	 * @throws InterruptedException
+	 */
+	public void watch(ChangeListener listener) throws IOException, InterruptedException {
+		try(WatchService service = discovery.getRoot().getFileSystem().newWatchService()) {
+			register(service, discovery.getRoot());
+			while(true) {
+				WatchKey key = service.take();
+				Set<Path> changed = new TreeSet<>();
+				while(key!=null) {
+					collectChanges(service, key, changed);
+					key = service.poll(debounceMillis, TimeUnit.MILLISECONDS);
+				}
+				if(!changed.isEmpty())
+					listener.changed(changed);
+			}
+		}
+	}
+
+	/** Register the directory and all its sub directories that the discovery visits
+	 *
+	 * @param service
+	 * @param start
+	 * @throws IOException
+	 */
+	private void register(final WatchService service, Path start) throws IOException {
+		Files.walkFileTree(start, new SimpleFileVisitor<Path>() {
+			@Override
+			public FileVisitResult preVisitDirectory(Path directory, BasicFileAttributes attributes) throws IOException {
+				if(!discovery.isDirectoryToVisit(directory))
+					return FileVisitResult.SKIP_SUBTREE;
+				directories.put(directory.register(service, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE), directory);
+				return FileVisitResult.CONTINUE;
+			}
+		});
+	}
+
+	/** Add to the set the input files of the events, and reset the key to receive the next events
+	 * A new directory is registered, and it is added to the set because its files could be created before the registration
+	 *
+	 * @param service
+	 * @param key
+	 * @param changed
+	 * @throws IOException if the input directory is not accessible anymore
+	 */
+	private void collectChanges(WatchService service, WatchKey key, Set<Path> changed) throws IOException {
+		Path directory = directories.get(key);
+		for(WatchEvent<?> event : key.pollEvents()) {
+			if(event.kind()==OVERFLOW) {
+				//Some events are lost, the whole directory could be changed
+				changed.add(directory);
+				continue;
+			}
+			Path file = directory.resolve((Path) event.context());
+			if(event.kind()==ENTRY_CREATE && Files.isDirectory(file) && discovery.isDirectoryToVisit(file)) {
+				register(service, file);
+				changed.add(file);
+			}else if(discovery.isFileToAnalyze(file)) {
+				changed.add(file);
+			}
+		}
+		if(!key.reset()) {
+			directories.remove(key);
+			if(directory.equals(discovery.getRoot()))
+				throw new IOException("The directory "+directory+" can't be watched anymore");
+		}
+	}
+}
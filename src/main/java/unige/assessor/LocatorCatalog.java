@@ -0,0 +1,95 @@
+package unige.assessor;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/** Catalog of the locators found in the whole suite, for each By.strategy(literal) it keeps the names of its getters
+ * The names are computed only the first time the locator is found and they are interned, so the lookup of a getter
+ * in a PageObject is a single hash lookup with a hash already computed. The catalog can be shared by many decomposers
+ * and used by many threads at the same time
+ */
+public class LocatorCatalog {
+	//Characters removed from the literal of a locator to build a method name, by code
+	private static final boolean[] REMOVED = new boolean[128];
+	static {
+		for(char removed : "\":.()'\\/#[]@=* >".toCharArray())
+			REMOVED[removed] = true;
+	}
+
+	//The locators by strategy, then by literal
+	private final Map<String,Map<String,Locator>> locators = new ConcurrentHashMap<>();
+
+	/** Return the locator By.strategy(literal), the literal is the value of the string argument without its quotes,
+	 * or the source code of any other argument. Both give the same locator because the quotes are removed from its name
+	 *
+	 * @param strategy
+	 * @param literal
+	 * @return
+	 */
+	public Locator get(String strategy, String literal) {
+		//A get doesn't lock, almost all the locators are already in the catalog
+		Map<String,Locator> byLiteral = locators.get(strategy);
+		if(byLiteral==null)
+			byLiteral = locators.computeIfAbsent(strategy, added -> new ConcurrentHashMap<>());
+		Locator locator = byLiteral.get(literal);
+		if(locator==null)
+			locator = byLiteral.computeIfAbsent(literal, added -> new Locator(strategy, literal));
+		return locator;
+	}
+
+	/** Number of different locators found
+	 *
+	 * @return
+	 */
+	public int size() {
+		int size = 0;
+		for(Map<String,Locator> byLiteral : locators.values())
+			size += byLiteral.size();
+		return size;
+	}
+
+	/** Replace - with _ and remove the invalid characters like ", : . and () for a methodDeclaration, in a single pass
+	 *
+	 * @param value
+	 * @return
+	 */
+	public static String cleanCharacterForMethod(String value) {
+		StringBuilder clean = new StringBuilder(value.length());
+		for(int i=0; i<value.length(); i++) {
+			char character = value.charAt(i);
+			if(character=='-')
+				clean.append('_');
+			else if(character>=REMOVED.length || !REMOVED[character])
+				clean.append(character);
+		}
+		return clean.toString();
+	}
+
+	/** A locator of the suite with the names of its getters */
+	public static final class Locator {
+		//Canonical name of the locator: STRATEGY_cleanedLiteral
+		private final String identifier;
+		//Getter of a findElement and of a findElements call
+		private final String getter;
+		private final String listGetter;
+
+		private Locator(String strategy, String literal) {
+			identifier = (strategy.toUpperCase()+"_"+cleanCharacterForMethod(literal)).intern();
+			getter = ("get"+identifier).intern();
+			listGetter = ("getList"+identifier).intern();
+		}
+
+		public String getIdentifier() {
+			return identifier;
+		}
+
+		/** Name of the getter of the locator
+		 *
+		 * @param list true for a findElements call
+		 * @return
+		 */
+		public String getterName(boolean list) {
+			return list ? listGetter : getter;
+		}
+	}
+}
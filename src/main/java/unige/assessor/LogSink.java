@@ -0,0 +1,281 @@
+package unige.assessor;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.DateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/** Write the warnings in the logs file of the output directory while the decomposer is running
+ * The decomposer only puts the warning in a bounded queue, with the time in milliseconds: the lines are formatted and
+ * written by a background thread in a temporary file, that replaces the logs file when the run is finished.
+ * With aggregation a warning repeated with the same code and message is written only the first time, and the number of
+ * repetitions is written at the end
+ */
+public class LogSink implements WarningSink, Closeable {
+
+	/** Format of the logs file */
+	public enum Format {
+		//a line for each warning: time - Warning: message
+		TEXT("logs.txt"),
+		//a JSON object for each line: time in milliseconds since the epoch, code and message
+		JSON("logs.jsonl");
+
+		private final String fileName;
+
+		Format(String fileName) {
+			this.fileName = fileName;
+		}
+
+		public String getFileName() {
+			return fileName;
+		}
+	}
+
+	private static final int QUEUE_SIZE = 8192;
+	private static final int BUFFER_SIZE = 64*1024;
+	//Put in the queue to stop the writer thread
+	private static final Warning END = new Warning(0, null, null);
+
+	private final Path target;
+	private final Path temp;
+	private final Format format;
+	private final boolean aggregate;
+	private final Writer writer;
+	private final BlockingQueue<Warning> queue = new ArrayBlockingQueue<>(QUEUE_SIZE);
+	private final Thread writerThread;
+	//Written by the writer thread, read only after it is finished
+	private int warnings;
+	private IOException failure;
+	private boolean stopped;
+
+	/**
+	 * @param directory output directory
+	 * @param format
+	 * @param aggregate true to write a repeated warning only once
+	 * @throws IOException
+	 */
+	public LogSink(Path directory, Format format, boolean aggregate) throws IOException {
+		this.format = format;
+		this.aggregate = aggregate;
+		Files.createDirectories(directory);
+		target = directory.resolve(format.getFileName());
+		temp = OutputWriter.createTempFile(directory, format.getFileName());
+		writer = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(temp), StandardCharsets.UTF_8), BUFFER_SIZE);
+		writerThread = new Thread(this::writeWarnings, "assessor-logs");
+		writerThread.setDaemon(true);
+		writerThread.start();
+	}
+
+	@Override
+	public void warn(Code code, String message) {
+		put(new Warning(System.currentTimeMillis(), code, message));
+	}
+
+	/** Wait for a free place in the queue, so the warnings in memory are always bounded
+	 *
+	 * @param warning
+	 */
+	private void put(Warning warning) {
+		boolean interrupted = false;
+		while(true) {
+			try {
+				queue.put(warning);
+				break;
+			}catch(InterruptedException e) {
+				interrupted = true;
+			}
+		}
+		if(interrupted)
+			Thread.currentThread().interrupt();
+	}
+
+	/** Body of the writer thread: write the warnings until the end is found
+	 * After an error the warnings are still taken from the queue, so the decomposer is never blocked
+	 */
+	private void writeWarnings() {
+		TimeFormat time = new TimeFormat();
+		//Warnings by code and message, in the order they are found the first time
+		Map<String,Repeated> repeated = new LinkedHashMap<>();
+		List<Warning> batch = new ArrayList<>();
+		try {
+			while(true) {
+				batch.add(take());
+				queue.drainTo(batch);
+				for(Warning warning : batch) {
+					if(warning==END) {
+						writeRepeated(repeated.values(), time);
+						return;
+					}
+					warnings++;
+					if(aggregate) {
+						String key = warning.code.name()+':'+warning.message;
+						Repeated count = repeated.get(key);
+						if(count!=null) {
+							count.times++;
+							continue;
+						}
+						repeated.put(key, new Repeated(warning));
+					}
+					write(warning, time);
+				}
+				batch.clear();
+			}
+		}finally {
+			try {
+				writer.close();
+			}catch(IOException e) {
+				if(failure==null)
+					failure = e;
+			}
+		}
+	}
+
+	private Warning take() {
+		while(true) {
+			try {
+				return queue.take();
+			}catch(InterruptedException e) {
+				//The thread is stopped only by the end of the queue
+			}
+		}
+	}
+
+	private void write(Warning warning, TimeFormat time) {
+		if(failure!=null)
+			return;
+		try {
+			if(format==Format.TEXT) {
+				writer.write(time.format(warning.time));
+				writer.write(" - Warning: ");
+				writer.write(warning.message);
+			}else {
+				writer.write("{\"time\": "+warning.time+", \"code\": "+RunMetrics.quote(warning.code.name())
+						+", \"message\": "+RunMetrics.quote(warning.message)+"}");
+			}
+			writer.write('\n');
+		}catch(IOException e) {
+			failure = e;
+		}
+	}
+
+	/** Write the number of times of the warnings repeated more than once
+	 *
+	 * @param warnings
+	 * @param time
+	 */
+	private void writeRepeated(Iterable<Repeated> warnings, TimeFormat time) {
+		long now = System.currentTimeMillis();
+		for(Repeated warning : warnings) {
+			if(warning.times==1 || failure!=null)
+				continue;
+			try {
+				if(format==Format.TEXT) {
+					writer.write(time.format(now)+" - Repeated "+warning.times+" times: Warning: "+warning.warning.message);
+				}else {
+					writer.write("{\"time\": "+now+", \"code\": "+RunMetrics.quote(warning.warning.code.name())
+							+", \"message\": "+RunMetrics.quote(warning.warning.message)+", \"times\": "+warning.times+"}");
+				}
+				writer.write('\n');
+			}catch(IOException e) {
+				failure = e;
+			}
+		}
+	}
+
+	/** Stop the writer thread and replace the logs file, only if a warning is received
+	 * The logs file of a previous run is not removed when there are no warnings
+	 *
+	 * @param output
+	 * @return number of warnings received
+	 * @throws IOException if the logs can't be written
+	 */
+	public int finish(OutputWriter output) throws IOException {
+		stop();
+		if(warnings>0)
+			output.write(target, temp);
+		return warnings;
+	}
+
+	private void stop() throws IOException {
+		if(stopped)
+			return;
+		stopped = true;
+		put(END);
+		boolean interrupted = false;
+		while(writerThread.isAlive()) {
+			try {
+				writerThread.join();
+			}catch(InterruptedException e) {
+				interrupted = true;
+			}
+		}
+		if(interrupted)
+			Thread.currentThread().interrupt();
+		if(failure!=null)
+			throw failure;
+	}
+
+	/** Stop the writer thread and delete the temporary file */
+	@Override
+	public void close() throws IOException {
+		try {
+			stop();
+		}finally {
+			Files.deleteIfExists(temp);
+		}
+	}
+
+	/** A warning received, with the time it is received */
+	private static final class Warning {
+		private final long time;
+		private final Code code;
+		private final String message;
+
+		Warning(long time, Code code, String message) {
+			this.time = time;
+			this.code = code;
+			this.message = message;
+		}
+	}
+
+	private static final class Repeated {
+		private final Warning warning;
+		private int times = 1;
+
+		Repeated(Warning warning) {
+			this.warning = warning;
+		}
+	}
+
+	/** Format the time like Date.toLocaleString, the text is created again only when the second changes
+	 * It is not thread safe, each thread must use its own
+	 */
+	static final class TimeFormat {
+		private final DateFormat format = DateFormat.getDateTimeInstance();
+		private final Date date = new Date();
+		private long second = Long.MIN_VALUE;
+		private String formatted;
+
+		String format(long millis) {
+			long current = Math.floorDiv(millis, 1000);
+			if(current!=second) {
+				second = current;
+				date.setTime(millis);
+				formatted = format.format(date);
+			}
+			return formatted;
+		}
+	}
+}
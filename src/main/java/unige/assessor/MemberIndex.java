@@ -0,0 +1,222 @@
+package unige.assessor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.body.BodyDeclaration;
+import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
+import com.github.javaparser.ast.body.FieldDeclaration;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.body.Parameter;
+import com.github.javaparser.ast.comments.Comment;
+import com.github.javaparser.ast.stmt.BlockStmt;
+import com.github.javaparser.ast.visitor.NoCommentEqualsVisitor;
+import com.github.javaparser.ast.visitor.NoCommentHashCodeVisitor;
+
+/** Index of the members of a single class, used to add methods and fields without scanning the class
+ * The methods are indexed by a structural fingerprint of the parameters and the body, so two methods
+ * with the same parameters and body are found with a single hash lookup.
+ * For each method name the next free progressive is remembered, and the fields are kept in a set.
+ * The index must be updated each time a member is added to the class.
+ */
+public class MemberIndex {
+	//First method declared for each fingerprint of parameters and body
+	private final Map<Fingerprint,MethodDeclaration> methodsByBody = new HashMap<>();
+	//Fingerprint used for each method, to update it if the method is changed after it is added
+	private final Map<MethodDeclaration,Fingerprint> fingerprints = new IdentityHashMap<>();
+	//First method declared for each method name used in the class
+	private final Map<String,MethodDeclaration> methodNames = new HashMap<>();
+	//For each base name, the next progressive to try for a rename
+	private final Map<String,Integer> nextSuffix = new HashMap<>();
+	//Fingerprint of all the fields declared
+	private final Set<Fingerprint> fields = new HashSet<>();
+
+	/** Create the index with all the members already declared in the class
+	 *
+	 * @param classDeclaration
+	 */
+	public MemberIndex(ClassOrInterfaceDeclaration classDeclaration) {
+		for(BodyDeclaration<?> member : classDeclaration.getMembers()) {
+			if(member.isMethodDeclaration())
+				addMethod(member.asMethodDeclaration());
+			else if(member.isFieldDeclaration())
+				addField(member.asFieldDeclaration());
+		}
+	}
+
+	/** Return the first method with the same parameters and body, or null if there is none
+	 *
+	 * @param method
+	 * @return
+	 */
+	public MethodDeclaration findSameMethod(MethodDeclaration method) {
+		return methodsByBody.get(fingerprintOf(method));
+	}
+
+	/** Check if a method with this name is declared in the class
+	 *
+	 * @param methodName
+	 * @return
+	 */
+	public boolean containsMethodName(String methodName) {
+		return methodNames.containsKey(methodName);
+	}
+
+	/** Return the first method declared with this name
+	 *
+	 * @param methodName
+	 * @return the method or null if there is no method with this name
+	 */
+	public MethodDeclaration getMethod(String methodName) {
+		return methodNames.get(methodName);
+	}
+
+	/** Return the name itself if it is not used, else the first name in the form name_N that is free
+	 *
+	 * @param baseName
+	 * @return
+	 */
+	public String nextFreeName(String baseName) {
+		if(!methodNames.containsKey(baseName))
+			return baseName;
+		//All the names before the remembered progressive are already used, the progressives are forgotten when a name is removed
+		int index = nextSuffix.getOrDefault(baseName, 1);
+		while(methodNames.containsKey(baseName+"_"+index))
+			index++;
+		nextSuffix.put(baseName, index+1);
+		return baseName+"_"+index;
+	}
+
+	/** Add the method to the index, the method must be added to the class by the caller
+	 *
+	 * @param method
+	 */
+	public void addMethod(MethodDeclaration method) {
+		Fingerprint fingerprint = fingerprintOf(method);
+		fingerprints.put(method, fingerprint);
+		methodsByBody.putIfAbsent(fingerprint, method);
+		methodNames.putIfAbsent(method.getNameAsString(), method);
+	}
+
+	/** Update the fingerprint of a method already in the index, after its parameters or body are changed
+	 *
+	 * @param method
+	 */
+	public void refreshMethod(MethodDeclaration method) {
+		Fingerprint old = fingerprints.remove(method);
+		if(old!=null && methodsByBody.get(old)==method)
+			methodsByBody.remove(old);
+		addMethod(method);
+	}
+
+	/** Remove the method from the index, after it is removed from the class
+	 *
+	 * @param method
+	 */
+	public void removeMethod(MethodDeclaration method) {
+		Fingerprint fingerprint = fingerprints.remove(method);
+		if(fingerprint!=null && methodsByBody.get(fingerprint)==method)
+			methodsByBody.remove(fingerprint);
+		if(methodNames.get(method.getNameAsString())==method)
+			methodNames.remove(method.getNameAsString());
+		//A free name could be before the remembered progressives now
+		nextSuffix.clear();
+	}
+
+	/** Check if the same field is already declared
+	 *
+	 * @param field
+	 * @return
+	 */
+	public boolean containsField(FieldDeclaration field) {
+		return fields.contains(new Fingerprint(field));
+	}
+
+	/** Add the field to the index, the field must be added to the class by the caller
+	 *
+	 * @param field
+	 */
+	public void addField(FieldDeclaration field) {
+		fields.add(new Fingerprint(field));
+	}
+
+	/** Remove the field from the index, after it is removed from the class
+	 *
+	 * @param field
+	 */
+	public void removeField(FieldDeclaration field) {
+		fields.remove(new Fingerprint(field));
+	}
+
+	/** The fingerprint contains the parameters, the body and the comments inside the body
+	 * The same comment can be an orphan comment of the body or the comment of the next statement, it depends on how the body
+	 * was built: analyzed, replayed from the cache or loaded again from its source. So the body is compared without comments,
+	 * and the comments inside the body are compared apart, in the order of their text
+	 *
+	 * @param method
+	 * @return
+	 */
+	static Fingerprint fingerprintOf(MethodDeclaration method) {
+		BlockStmt body = method.getBody().orElse(null);
+		List<String> comments = new ArrayList<>();
+		if(body!=null) {
+			for(Comment comment : body.getAllContainedComments())
+				comments.add(comment.getClass().getSimpleName()+":"+comment.getContent());
+			Collections.sort(comments);
+		}
+		return new Fingerprint(method.getParameters().toArray(new Parameter[0]), body, comments);
+	}
+
+	/** Structural key of a list of nodes, with an optional body compared without its comments
+	 * The hash is computed only once, the equality compares the structure of the nodes
+	 */
+	static final class Fingerprint {
+		private final Node[] nodes;
+		private final Node body;
+		private final List<String> comments;
+		private final int hash;
+
+		Fingerprint(Node... nodes) {
+			this(nodes, null, Collections.<String>emptyList());
+		}
+
+		Fingerprint(Node[] nodes, Node body, List<String> comments) {
+			this.nodes = nodes;
+			this.body = body;
+			this.comments = comments;
+			int result = nodes.length;
+			for(Node node : nodes)
+				result = 31*result + (node==null ? 0 : node.hashCode());
+			result = 31*result + (body==null ? 0 : NoCommentHashCodeVisitor.hashCode(body));
+			this.hash = 31*result + comments.hashCode();
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if(this==obj)
+				return true;
+			if(!(obj instanceof Fingerprint))
+				return false;
+			Fingerprint other = (Fingerprint) obj;
+			if(hash!=other.hash || nodes.length!=other.nodes.length)
+				return false;
+			for(int i=0;i<nodes.length;i++) {
+				if(nodes[i]==null ? other.nodes[i]!=null : !nodes[i].equals(other.nodes[i]))
+					return false;
+			}
+			return NoCommentEqualsVisitor.equals(body, other.body) && comments.equals(other.comments);
+		}
+	}
+}
@@ -0,0 +1,220 @@
+package unige.assessor;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.security.DigestInputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/** Write the generated files as UTF-8, only when their content is changed
+ * The content is compared with a hash of the existing file, an identical file is not touched so its
+ * modification time doesn't change. A changed file is written in a temporary file of the same directory
+ * and then renamed, so a reader never sees a file written only in part. A new file has the permissions of any file
+ * created by the user, a replaced file keeps its permissions.
+ * The files can be written by many threads at the same time
+ */
+public class OutputWriter {
+	private static final String HASH_ALGORITHM = "SHA-256";
+	private static final int BUFFER_SIZE = 64*1024;
+
+	private final AtomicInteger written = new AtomicInteger();
+	private final AtomicInteger skipped = new AtomicInteger();
+
+	/** Content written directly in the file, without building it in memory */
+	public interface Content {
+		void writeTo(Writer writer) throws IOException;
+	}
+
+	/** Write the content in the file if the file doesn't exist or has a different content
+	 *
+	 * @param target
+	 * @param content
+	 * @return true if the file is written, false if it was already identical
+	 * @throws IOException
+	 */
+	public boolean write(Path target, String content) throws IOException {
+		byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+		if(isSameContent(target, bytes)) {
+			skipped.incrementAndGet();
+			return false;
+		}
+		Path directory = target.toAbsolutePath().getParent();
+		Files.createDirectories(directory);
+		Path temp = createTempFile(directory, target.getFileName().toString());
+		try {
+			try(FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+				ByteBuffer buffer = ByteBuffer.wrap(bytes);
+				while(buffer.hasRemaining())
+					channel.write(buffer);
+			}
+			move(temp, target);
+		}finally {
+			Files.deleteIfExists(temp);
+		}
+		written.incrementAndGet();
+		return true;
+	}
+
+	/** Write the content in the file if the file doesn't exist or has a different content
+	 * The content is written in the temporary file while its hash is computed, and compared with the existing file at the end
+	 *
+	 * @param target
+	 * @param content
+	 * @return true if the file is written, false if it was already identical
+	 * @throws IOException
+	 */
+	public boolean write(Path target, Content content) throws IOException {
+		Path directory = target.toAbsolutePath().getParent();
+		Files.createDirectories(directory);
+		Path temp = createTempFile(directory, target.getFileName().toString());
+		try {
+			MessageDigest digest = newDigest();
+			try(FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+					Writer writer = new BufferedWriter(new OutputStreamWriter(new DigestOutputStream(Channels.newOutputStream(channel), digest), 
+							StandardCharsets.UTF_8), BUFFER_SIZE)) {
+				content.writeTo(writer);
+			}
+			if(isSameContent(target, Files.size(temp), digest.digest())) {
+				skipped.incrementAndGet();
+				return false;
+			}
+			move(temp, target);
+		}finally {
+			Files.deleteIfExists(temp);
+		}
+		written.incrementAndGet();
+		return true;
+	}
+
+	/** Move a file already written in the same directory to the target, if the target doesn't have the same content
+	 * If the target has the same content the file is deleted
+	 *
+	 * @param target
+	 * @param file
+	 * @return true if the file is moved, false if the target was already identical
+	 * @throws IOException
+	 */
+	public boolean write(Path target, Path file) throws IOException {
+		try {
+			if(isSameContent(target, Files.size(file), hash(file))) {
+				skipped.incrementAndGet();
+				return false;
+			}
+			move(file, target);
+		}finally {
+			Files.deleteIfExists(file);
+		}
+		written.incrementAndGet();
+		return true;
+	}
+
+	/** Create an empty temporary file in the directory, with the permissions given by the umask to the new files
+	 * A file of Files.createTempFile is readable only by the owner, and the move would keep these permissions on the target
+	 *
+	 * @param directory
+	 * @param prefix start of the file name
+	 * @return
+	 * @throws IOException
+	 */
+	static Path createTempFile(Path directory, String prefix) throws IOException {
+		while(true) {
+			Path temp = directory.resolve(prefix+Long.toUnsignedString(ThreadLocalRandom.current().nextLong())+".tmp");
+			try {
+				return Files.createFile(temp);
+			}catch(FileAlreadyExistsException e) {
+				//Another temporary file has the same name, a new name is tried
+			}
+		}
+	}
+
+	private static void move(Path source, Path target) throws IOException {
+		//A replaced file keeps its permissions, where the file system has them
+		PosixFileAttributeView permissions = Files.getFileAttributeView(target, PosixFileAttributeView.class);
+		if(permissions!=null && Files.exists(target))
+			Files.setPosixFilePermissions(source, permissions.readAttributes().permissions());
+		try {
+			Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		}catch(AtomicMoveNotSupportedException e) {
+			//Some file systems can't rename atomically, the file is replaced anyway
+			Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	/** Compare the hash of the existing file with the hash of the new content, the size is checked first
+	 *
+	 * @param target
+	 * @param bytes
+	 * @return true if the file exists with the same content
+	 * @throws IOException
+	 */
+	private static boolean isSameContent(Path target, byte[] bytes) throws IOException {
+		if(!Files.isRegularFile(target) || Files.size(target)!=bytes.length)
+			return false;
+		return isSameContent(target, bytes.length, newDigest().digest(bytes));
+	}
+
+	/** Compare the hash of the existing file with the hash of the new content, the size is checked first
+	 *
+	 * @param target
+	 * @param size size of the new content
+	 * @param hash hash of the new content
+	 * @return true if the file exists with the same content
+	 * @throws IOException
+	 */
+	private static boolean isSameContent(Path target, long size, byte[] hash) throws IOException {
+		if(!Files.isRegularFile(target) || Files.size(target)!=size)
+			return false;
+		return Arrays.equals(hash(target), hash);
+	}
+
+	private static byte[] hash(Path file) throws IOException {
+		MessageDigest digest = newDigest();
+		try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+				InputStream input = new DigestInputStream(Channels.newInputStream(channel), digest)) {
+			byte[] buffer = new byte[BUFFER_SIZE];
+			while(input.read(buffer)!=-1);
+		}
+		return digest.digest();
+	}
+
+	private static MessageDigest newDigest() {
+		try {
+			return MessageDigest.getInstance(HASH_ALGORITHM);
+		} catch (NoSuchAlgorithmException e) {
+			//Every Java platform must support SHA-256
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * @return number of files written
+	 */
+	public int getWritten() {
+		return written.get();
+	}
+
+	/**
+	 * @return number of files skipped because they were identical
+	 */
+	public int getSkipped() {
+		return skipped.get();
+	}
+}
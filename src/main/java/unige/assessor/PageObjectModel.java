@@ -0,0 +1,223 @@
+package unige.assessor;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
+import com.github.javaparser.ast.body.ConstructorDeclaration;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.expr.AssignExpr;
+import com.github.javaparser.ast.expr.FieldAccessExpr;
+import com.github.javaparser.ast.expr.NameExpr;
+import com.github.javaparser.ast.expr.ThisExpr;
+import com.github.javaparser.ast.stmt.BlockStmt;
+import com.github.javaparser.ast.type.ClassOrInterfaceType;
+import com.github.javaparser.ast.type.Type;
+
+/** Model of a PageObject used while the files are analyzed, the JavaParser class is built only when it is printed
+ * Each method is kept as its interned name, its node and the structural fingerprint of its parameters and body
+ * used by {@link MemberIndex}, so two methods are the same if their fingerprints are equal, with a single hash lookup.
+ * Only the last method added can still be changed by the decomposer, the fingerprint of the others is never computed again
+ */
+public class PageObjectModel {
+	private final String name;
+	//Methods in the order they are added
+	private final List<MethodModel> methods = new ArrayList<>();
+	//First method added for each fingerprint of parameters and body
+	private final Map<MemberIndex.Fingerprint,MethodModel> methodsByKey = new HashMap<>();
+	//First method added for each method name
+	private final Map<String,MethodModel> methodNames = new HashMap<>();
+	//For each base name, the next progressive to try for a rename
+	private final Map<String,Integer> nextSuffix = new HashMap<>();
+	//Last method added, while it is still a node
+	private MethodModel open;
+
+	/**
+	 * @param name name of the PageObject class
+	 */
+	public PageObjectModel(String name) {
+		this.name = name.intern();
+	}
+
+	/** Create the model of a PageObject class printed by {@link #toCompilationUnit(String)} and parsed again
+	 * The methods are moved from the class to the model
+	 *
+	 * @param pageObject
+	 * @return
+	 */
+	public static PageObjectModel fromClass(ClassOrInterfaceDeclaration pageObject) {
+		PageObjectModel model = new PageObjectModel(pageObject.getNameAsString());
+		for(MethodDeclaration method : pageObject.getMethods())
+			model.addMethod(method);
+		model.seal();
+		return model;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @return number of methods of the PageObject
+	 */
+	public int getMethodCount() {
+		return methods.size();
+	}
+
+	/** Return the name of the first method with the same parameters and body, or null if there is none
+	 *
+	 * @param method
+	 * @return
+	 */
+	public String findSameMethod(MethodDeclaration method) {
+		MethodModel same = methodsByKey.get(MemberIndex.fingerprintOf(method));
+		return same==null ? null : same.name;
+	}
+
+	/** Check if a method with this name is declared in the PageObject
+	 *
+	 * @param methodName
+	 * @return
+	 */
+	public boolean containsMethodName(String methodName) {
+		return methodNames.containsKey(methodName);
+	}
+
+	/** Return the name itself if it is not used, else the first name in the form name_N that is free
+	 *
+	 * @param baseName
+	 * @return
+	 */
+	public String nextFreeName(String baseName) {
+		if(!methodNames.containsKey(baseName))
+			return baseName;
+		//All the names before the remembered progressive are already used, the progressives are forgotten when a name is removed
+		int index = nextSuffix.getOrDefault(baseName, 1);
+		while(methodNames.containsKey(baseName+"_"+index))
+			index++;
+		nextSuffix.put(baseName, index+1);
+		return baseName+"_"+index;
+	}
+
+	/** Check if the method is the last one added, so it is still part of the PageObject and it can be changed
+	 *
+	 * @param method
+	 * @return
+	 */
+	public boolean isOpen(MethodDeclaration method) {
+		return open!=null && open.method==method;
+	}
+
+	/** Add the method at the end of the PageObject, the previous method added can't be changed anymore
+	 *
+	 * @param method
+	 */
+	public void addMethod(MethodDeclaration method) {
+		seal();
+		MethodModel added = new MethodModel(method.getNameAsString().intern(), MemberIndex.fingerprintOf(method), method);
+		methods.add(added);
+		methodsByKey.putIfAbsent(added.key, added);
+		methodNames.putIfAbsent(added.name, added);
+		open = added;
+	}
+
+	/** Update the fingerprint of the last method added, after its parameters or body are changed
+	 *
+	 * @param method
+	 */
+	public void refreshMethod(MethodDeclaration method) {
+		if(!isOpen(method))
+			throw new IllegalArgumentException("Only the last method added can be changed: "+method.getNameAsString());
+		forgetKey(open);
+		open.key = MemberIndex.fingerprintOf(method);
+		methodsByKey.putIfAbsent(open.key, open);
+	}
+
+	/** Close the last method added, it can't be changed anymore
+	 * If the method was changed after it was last added, its fingerprint is not valid anymore and it is never found as a method with the same body.
+	 * The fingerprint shares the nodes of the method, so a change is seen only as a different hash
+	 */
+	public void seal() {
+		if(open==null)
+			return;
+		if(open.key.hashCode()!=MemberIndex.fingerprintOf(open.method).hashCode())
+			forgetKey(open);
+		open = null;
+	}
+
+	/** Remove the methods added after the first count, used to undo the methods of a file
+	 *
+	 * @param count
+	 */
+	public void truncate(int count) {
+		seal();
+		List<MethodModel> added = methods.subList(count, methods.size());
+		for(MethodModel method : added) {
+			forgetKey(method);
+			if(methodNames.get(method.name)==method)
+				methodNames.remove(method.name);
+		}
+		added.clear();
+		//A free name could be before the remembered progressives now
+		nextSuffix.clear();
+	}
+
+	private void forgetKey(MethodModel method) {
+		if(methodsByKey.get(method.key)==method)
+			methodsByKey.remove(method.key);
+	}
+
+	/** Build the JavaParser unit of the PageObject, without imports: the fields driver, js and vars, the constructor
+	 * that sets them and all the methods in the order they are added.
+	 * The methods are copies with the same positions, so the model stays valid and each unit built is independent of the others
+	 *
+	 * @param packageName
+	 * @return
+	 */
+	public CompilationUnit toCompilationUnit(String packageName) {
+		seal();
+		CompilationUnit unit = new CompilationUnit();
+		ClassOrInterfaceDeclaration pageObject = unit.addClass(name).setPublic(true);
+		unit.setPackageDeclaration(packageName);
+		//The fields are driver, js, vars in this order
+		Map<String,Type> fields = new LinkedHashMap<>();
+		fields.put("driver", classType("WebDriver"));
+		fields.put("js", classType("JavascriptExecutor"));
+		fields.put("vars", classType("Map").setTypeArguments(classType("String"), classType("Object")));
+		for(Map.Entry<String,Type> entry : fields.entrySet()) {
+			pageObject.addField(entry.getValue().clone(), entry.getKey());
+		}
+		ConstructorDeclaration constructor = pageObject.addConstructor().setPublic(true);
+		BlockStmt blockStmt = new BlockStmt();
+		for(Map.Entry<String,Type> entry : fields.entrySet()) {
+			constructor.addParameter(entry.getValue(), entry.getKey());
+			//this.field=field;
+			blockStmt.addStatement(new AssignExpr(new FieldAccessExpr(new ThisExpr(), entry.getKey()), new NameExpr(entry.getKey()), AssignExpr.Operator.ASSIGN));
+		}
+		constructor.setBody(blockStmt);
+		for(MethodModel method : methods)
+			pageObject.addMember(PositionCloneVisitor.copyOf(method.method));
+		return unit;
+	}
+
+	private static ClassOrInterfaceType classType(String className) {
+		return new ClassOrInterfaceType(null, className);
+	}
+
+	/** A method of the PageObject */
+	private static final class MethodModel {
+		private final String name;
+		private MemberIndex.Fingerprint key;
+		private final MethodDeclaration method;
+
+		MethodModel(String name, MemberIndex.Fingerprint key, MethodDeclaration method) {
+			this.name = name;
+			this.key = key;
+			this.method = method;
+		}
+	}
+}
@@ -0,0 +1,137 @@
+package unige.assessor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
+
+/** Index by name of all the classes created by the TreeDecomposer
+ * The lookup of a class doesn't need to visit the CompilationUnit, and the names of the PageObjects are
+ * also kept in the order they are created. The PageObjects are kept as their model.
+ * A PageObject can be removed from memory and registered again later,
+ * its position in the creation order doesn't change. The registry can be used by many threads at the same time
+ */
+public class PageObjectRegistry {
+	//The classes that are not PageObjects, by name. If two classes have the same name the first one is kept
+	private final Map<String,ClassOrInterfaceDeclaration> classes = new HashMap<>();
+	//The PageObjects in memory, by name
+	private final Map<String,PageObjectModel> pageObjects = new HashMap<>();
+	//Names of the PageObject classes, in creation order
+	private final List<String> pageObjectNames = new ArrayList<>();
+
+	/** Return the class with the name, or null if the class was never registered
+	 *
+	 * @param className
+	 * @return
+	 */
+	public synchronized ClassOrInterfaceDeclaration get(String className) {
+		return classes.get(className);
+	}
+
+	/** Register a class that is not a PageObject (the TestSuite class and the helper class)
+	 *
+	 * @param classDeclaration
+	 */
+	public synchronized void registerClass(ClassOrInterfaceDeclaration classDeclaration) {
+		classes.putIfAbsent(classDeclaration.getNameAsString(), classDeclaration);
+	}
+
+	/** Return the PageObject with the name, or null if it was never registered or it is not in memory
+	 *
+	 * @param name
+	 * @return
+	 */
+	public synchronized PageObjectModel getPageObject(String name) {
+		return pageObjects.get(name);
+	}
+
+	/** Register a new PageObject class
+	 *
+	 * @param pageObject
+	 */
+	public synchronized void registerPageObject(PageObjectModel pageObject) {
+		if(pageObjects.putIfAbsent(pageObject.getName(), pageObject)==null)
+			pageObjectNames.add(pageObject.getName());
+	}
+
+	/** Remove the PageObject from memory, the name stays registered
+	 *
+	 * @param name
+	 */
+	public synchronized void evictPageObject(String name) {
+		pageObjects.remove(name);
+	}
+
+	/** Register again a PageObject removed from memory
+	 *
+	 * @param pageObject
+	 */
+	public synchronized void reloadPageObject(PageObjectModel pageObject) {
+		pageObjects.put(pageObject.getName(), pageObject);
+	}
+
+	/** Remove a PageObject, also from the creation order
+	 *
+	 * @param name
+	 */
+	public synchronized void removePageObject(String name) {
+		pageObjects.remove(name);
+		pageObjectNames.remove(name);
+	}
+
+	/** Remove the PageObjects created after the first count, also from the creation order
+	 *
+	 * @param count
+	 * @return the names of the PageObjects removed
+	 */
+	public synchronized List<String> removePageObjectsAfter(int count) {
+		List<String> created = pageObjectNames.subList(count, pageObjectNames.size());
+		List<String> removed = new ArrayList<>(created);
+		created.clear();
+		for(String name : removed)
+			pageObjects.remove(name);
+		return removed;
+	}
+
+	/** Return all the PageObject classes in memory, in the order they were created
+	 *
+	 * @return
+	 */
+	public synchronized List<PageObjectModel> getPageObjects() {
+		List<PageObjectModel> inMemory = new ArrayList<>();
+		for(String name : pageObjectNames) {
+			PageObjectModel pageObject = pageObjects.get(name);
+			if(pageObject!=null)
+				inMemory.add(pageObject);
+		}
+		return inMemory;
+	}
+
+	/** Return the names of all the PageObject, also the ones removed from memory, in the order they were created
+	 *
+	 * @return
+	 */
+	public synchronized List<String> getPageObjectNames() {
+		return Collections.unmodifiableList(new ArrayList<>(pageObjectNames));
+	}
+
+	/** Change the creation order of the PageObjects, used when they are created by many threads
+	 *
+	 * @param order
+	 */
+	public synchronized void sortPageObjects(Comparator<String> order) {
+		Collections.sort(pageObjectNames, order);
+	}
+
+	/** Number of PageObject registered
+	 *
+	 * @return
+	 */
+	public synchronized int pageObjectCount() {
+		return pageObjectNames.size();
+	}
+}
@@ -0,0 +1,178 @@
+package unige.assessor;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.lang.reflect.Method;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/** Print and write the generated files on a pool of workers, while the caller gives the next units
+ * Each file is printed in memory by a worker, then it is written when one of the writers is free, so the printing
+ * uses all the cores but only a few files are written at the same time. The workers are virtual threads when the JDK has them.
+ * Each file has its own target and content, so the result doesn't depend on the order the workers finish.
+ * At most window files are submitted and not yet written, so the units waiting to be printed are bounded
+ */
+public class ParallelEmitter implements Closeable {
+	private final OutputWriter output;
+	private final RunMetrics metrics;
+	private final ExecutorService pool;
+	private final Semaphore writers;
+	private final Semaphore window;
+	//Results in submit order, so the first error is always the same
+	private final List<Future<Void>> submitted = new ArrayList<>();
+
+	/**
+	 * @param output
+	 * @param metrics metrics of the run, the work of each file is measured as emit phase. Can be null
+	 * @param workers number of files printed at the same time
+	 * @param writers number of files written at the same time
+	 */
+	public ParallelEmitter(OutputWriter output, RunMetrics metrics, int workers, int writers) {
+		if(workers<1 || writers<1)
+			throw new IllegalArgumentException("workers and writers must be at least 1");
+		this.output = output;
+		this.metrics = metrics;
+		this.pool = Executors.newFixedThreadPool(workers, workerFactory());
+		this.writers = new Semaphore(writers);
+		this.window = new Semaphore(workers*2);
+	}
+
+	/** Default emitter: a worker for each core
+	 *
+	 * @param output
+	 * @param metrics
+	 * @param writers number of files written at the same time
+	 * @return
+	 */
+	public static ParallelEmitter withDefaultSize(OutputWriter output, RunMetrics metrics, int writers) {
+		return new ParallelEmitter(output, metrics, Runtime.getRuntime().availableProcessors(), writers);
+	}
+
+	/** Print the content in memory on a worker, then write it in the target
+	 *
+	 * @param target
+	 * @param content
+	 * @throws IOException if the thread is interrupted while it waits for a free place
+	 */
+	public void submit(final Path target, final OutputWriter.Content content) throws IOException {
+		submit(() -> {
+			StringWriter text = new StringWriter();
+			content.writeTo(text);
+			writers.acquire();
+			try {
+				output.write(target, text.toString());
+			}finally {
+				writers.release();
+			}
+		});
+	}
+
+	/** Write the content in the target while it is printed, for a content too large to keep it in memory
+	 *
+	 * @param target
+	 * @param content
+	 * @throws IOException if the thread is interrupted while it waits for a free place
+	 */
+	public void submitStreamed(final Path target, final OutputWriter.Content content) throws IOException {
+		submit(() -> {
+			writers.acquire();
+			try {
+				output.write(target, content);
+			}finally {
+				writers.release();
+			}
+		});
+	}
+
+	private interface Job {
+		void run() throws IOException, InterruptedException;
+	}
+
+	private void submit(final Job job) throws IOException {
+		try {
+			window.acquire();
+		}catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while the files are written", e);
+		}
+		submitted.add(pool.submit(() -> {
+			RunMetrics.Measure measure = metrics==null ? null : metrics.start(RunMetrics.Phase.EMIT);
+			try {
+				job.run();
+				return null;
+			}finally {
+				if(measure!=null)
+					measure.stop();
+				window.release();
+			}
+		}));
+	}
+
+	/** Wait until all the files submitted are written
+	 *
+	 * @throws IOException the error of the first file, in submit order, that can't be printed or written
+	 */
+	public void await() throws IOException {
+		try {
+			for(Future<Void> result : submitted)
+				result.get();
+		}catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while the files are written", e);
+		}catch(ExecutionException e) {
+			Throwable cause = e.getCause();
+			if(cause instanceof IOException)
+				throw (IOException) cause;
+			if(cause instanceof RuntimeException)
+				throw (RuntimeException) cause;
+			if(cause instanceof Error)
+				throw (Error) cause;
+			throw new IOException("Cannot write the files", cause);
+		}finally {
+			submitted.clear();
+		}
+	}
+
+	/** Stop the workers, the files not yet written are abandoned */
+	@Override
+	public void close() {
+		pool.shutdownNow();
+	}
+
+	/** Factory of virtual threads if the JDK has them (Java 21), else of daemon platform threads
+	 * The workers are reused for all the files, so the state kept by each thread is reused even with virtual threads
+	 *
+	 * @return
+	 */
+	private static ThreadFactory workerFactory() {
+		try {
+			Method ofVirtual = Thread.class.getMethod("ofVirtual");
+			Class<?> builder = Class.forName("java.lang.Thread$Builder");
+			Object virtual = ofVirtual.invoke(null);
+			virtual = builder.getMethod("name", String.class, long.class).invoke(virtual, "assessor-emit-", 1L);
+			return (ThreadFactory) builder.getMethod("factory").invoke(virtual);
+		}catch(ReflectiveOperationException | RuntimeException e) {
+			//Before Java 21, or with the virtual threads still in preview
+			return new EmitThreadFactory();
+		}
+	}
+
+	private static class EmitThreadFactory implements ThreadFactory {
+		private final AtomicInteger count = new AtomicInteger();
+
+		public Thread newThread(Runnable task) {
+			Thread thread = new Thread(task, "assessor-emit-"+count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
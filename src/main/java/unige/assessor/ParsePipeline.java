@@ -0,0 +1,207 @@
+package unige.assessor;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/** Bounded producer/consumer pipeline between the parser and the TreeDecomposer
+ * A pool of workers parses the files in parallel, while the caller thread consumes the CompilationUnit
+ * always in the original file order, so the result is the same of a sequential run.
+ * Only the files inside a window of the next files to consume can be parsed in advance, and inside the window
+ * the largest files are parsed first. At most window units are alive at the same time.
+ */
+public class ParsePipeline {
+
+	/** Parse a single file, the result is usually the CompilationUnit */
+	public interface UnitParser<T> {
+		T parse(File file) throws IOException;
+	}
+
+	/** Receive each parsed file, in the original file order */
+	public interface UnitConsumer<T> {
+		void accept(File file, T unit) throws IOException;
+	}
+
+	private final int workers;
+	private final int window;
+	//Threads of the parsers kept between the runs, null to create the threads at each run
+	private final ExecutorService pool;
+
+	/**
+	 * @param workers number of parser threads
+	 * @param window max number of files parsed but not yet consumed
+	 */
+	public ParsePipeline(int workers, int window) {
+		this(workers, window, null);
+	}
+
+	/** Create a pipeline that parses on the threads of the pool, the pool is not shut down at the end of a run
+	 * The parsers are kept by thread, so a pool that lives for many runs keeps its parsers warm
+	 *
+	 * @param workers number of parser threads of the pool
+	 * @param window max number of files parsed but not yet consumed
+	 * @param pool the threads of the parsers, null to create them at each run
+	 */
+	public ParsePipeline(int workers, int window, ExecutorService pool) {
+		if(workers<1 || window<1)
+			throw new IllegalArgumentException("workers and window must be at least 1");
+		this.workers = workers;
+		this.window = window;
+		this.pool = pool;
+	}
+
+	/** Default pipeline: one worker for each core except the one used by the consumer
+	 *
+	 * @return
+	 */
+	public static ParsePipeline withDefaultSize() {
+		return withDefaultSize(null);
+	}
+
+	/** Default pipeline that parses on the threads of the pool
+	 *
+	 * @param pool created by {@link #newParserPool()}, null to create the threads at each run
+	 * @return
+	 */
+	public static ParsePipeline withDefaultSize(ExecutorService pool) {
+		int workers = defaultWorkers();
+		return new ParsePipeline(workers, workers*4, pool);
+	}
+
+	/** Create the threads of the parsers for many runs of the default pipeline, the caller must shut it down
+	 *
+	 * @return
+	 */
+	public static ExecutorService newParserPool() {
+		return Executors.newFixedThreadPool(defaultWorkers(), new ParserThreadFactory());
+	}
+
+	private static int defaultWorkers() {
+		return Math.max(1, Runtime.getRuntime().availableProcessors()-1);
+	}
+
+	/** Parse all the files and send them to the consumer in the same order of the array
+	 *
+	 * @param files
+	 * @param parser
+	 * @param consumer
+	 * @throws IOException the first error found reading or parsing a file
+	 */
+	public <T> void run(File[] files, UnitParser<T> parser, UnitConsumer<T> consumer) throws IOException {
+		if(files==null || files.length==0)
+			return;
+		run(Arrays.asList(files).iterator(), parser, consumer);
+	}
+
+	/** Parse all the files and send them to the consumer in the same order of the iterator
+	 * The files are read from the iterator only when they enter in the window, so the iterator can still be searching them.
+	 * An UncheckedIOException of the iterator is thrown as IOException
+	 *
+	 * @param files
+	 * @param parser
+	 * @param consumer
+	 * @throws IOException the first error found searching, reading or parsing a file
+	 */
+	public <T> void run(final Iterator<File> files, final UnitParser<T> parser, UnitConsumer<T> consumer) throws IOException {
+		//Only the files inside the window are kept, by position in the iterator
+		final Map<Integer,File> windowFiles = new HashMap<>();
+		final Map<Integer,Long> sizes = new HashMap<>();
+		Map<Integer,Future<T>> parsed = new HashMap<>();
+		//Files that can be submitted, the largest first and, with the same size, the first in order
+		PriorityQueue<Integer> ready = new PriorityQueue<>(new Comparator<Integer>() {
+			public int compare(Integer a, Integer b) {
+				int bySize = Long.compare(sizes.get(b), sizes.get(a));
+				return bySize!=0 ? bySize : Integer.compare(a, b);
+			}
+		});
+		ExecutorService pool = this.pool!=null ? this.pool : Executors.newFixedThreadPool(workers, new ParserThreadFactory());
+		try {
+			int nextReady = 0;
+			int inFlight = 0;
+			for(int next=0;next<nextReady || hasNext(files);next++) {
+				//The window always contains the next file to consume, so the pipeline can't stall
+				for(;nextReady<next+window && hasNext(files);nextReady++) {
+					File file = next(files);
+					windowFiles.put(nextReady, file);
+					sizes.put(nextReady, file.length());
+					ready.add(nextReady);
+				}
+				while(inFlight<window && !ready.isEmpty()) {
+					final int index = ready.poll();
+					final File file = windowFiles.get(index);
+					parsed.put(index, pool.submit(() -> parser.parse(file)));
+					inFlight++;
+				}
+				File file = windowFiles.remove(next);
+				sizes.remove(next);
+				T unit = waitFor(parsed.remove(next), file);
+				inFlight--;
+				consumer.accept(file, unit);
+			}
+		}finally {
+			if(this.pool==null) {
+				pool.shutdownNow();
+			}else {
+				//The pool is still used by the next runs, only the files of this run are stopped
+				for(Future<T> future : parsed.values())
+					future.cancel(true);
+			}
+		}
+	}
+
+	private static boolean hasNext(Iterator<File> files) throws IOException {
+		try {
+			return files.hasNext();
+		}catch(UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
+
+	private static File next(Iterator<File> files) throws IOException {
+		try {
+			return files.next();
+		}catch(UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
+
+	private <T> T waitFor(Future<T> future, File file) throws IOException {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while parsing "+file, e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if(cause instanceof IOException)
+				throw (IOException) cause;
+			if(cause instanceof RuntimeException)
+				throw (RuntimeException) cause;
+			if(cause instanceof Error)
+				throw (Error) cause;
+			throw new IOException("Cannot parse "+file, cause);
+		}
+	}
+
+	private static class ParserThreadFactory implements ThreadFactory {
+		private final AtomicInteger count = new AtomicInteger();
+
+		public Thread newThread(Runnable task) {
+			Thread thread = new Thread(task, "assessor-parser-"+count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
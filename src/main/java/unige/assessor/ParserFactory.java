@@ -0,0 +1,127 @@
+package unige.assessor;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParseProblemException;
+import com.github.javaparser.ParseResult;
+import com.github.javaparser.ParseStart;
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.ParserConfiguration.LanguageLevel;
+import com.github.javaparser.Providers;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.symbolsolver.JavaSymbolSolver;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.CombinedTypeSolver;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.ReflectionTypeSolver;
+
+/** Give to each thread its own JavaParser, configured only the first time it is requested
+ * A JavaParser is not thread safe, but it can be reused for all the files parsed by the same thread.
+ * In parse only mode the symbol solver is not configured, so no symbol resolution is done at all
+ */
+public class ParserFactory {
+	private final boolean resolveSymbols;
+	private final boolean validate;
+	private final ThreadLocal<JavaParser> parsers = new ThreadLocal<JavaParser>() {
+		@Override
+		protected JavaParser initialValue() {
+			return new JavaParser(createConfiguration());
+		}
+	};
+
+	/**
+	 * @param resolveSymbols if true each parser is configured with a reflection based symbol solver
+	 */
+	public ParserFactory(boolean resolveSymbols) {
+		this(resolveSymbols, true);
+	}
+
+	private ParserFactory(boolean resolveSymbols, boolean validate) {
+		this.resolveSymbols = resolveSymbols;
+		this.validate = validate;
+	}
+
+	/** Factory for parser without symbol resolution, enough for the TreeDecomposer
+	 *
+	 * @return
+	 */
+	public static ParserFactory parseOnly() {
+		return new ParserFactory(false);
+	}
+
+	/** Factory for parser that can resolve the symbols of the JDK classes
+	 *
+	 * @return
+	 */
+	public static ParserFactory withSymbolSolver() {
+		return new ParserFactory(true);
+	}
+
+	/** Factory for parser of source code printed by JavaParser itself, like the contributions in the cache
+	 * The code is already valid, so the language level is not checked: the validation is most of the time of a parse
+	 *
+	 * @return
+	 */
+	public static ParserFactory withoutValidation() {
+		return new ParserFactory(false, false);
+	}
+
+	private ParserConfiguration createConfiguration() {
+		ParserConfiguration configuration = new ParserConfiguration();
+		if(!validate)
+			configuration.setLanguageLevel(LanguageLevel.RAW);
+		if(resolveSymbols) {
+			// Set up a minimal type solver that only looks at the classes used to run the tool
+			CombinedTypeSolver combinedTypeSolver = new CombinedTypeSolver();
+			combinedTypeSolver.add(new ReflectionTypeSolver());
+			configuration.setSymbolResolver(new JavaSymbolSolver(combinedTypeSolver));
+		}
+		return configuration;
+	}
+
+	/** Return the parser of the current thread
+	 *
+	 * @return
+	 */
+	public JavaParser get() {
+		return parsers.get();
+	}
+
+	/** Read a Java file as UTF-8 and parse it with the parser of the current thread
+	 *
+	 * @param file
+	 * @return
+	 * @throws IOException if the file can't be read
+	 * @throws ParseProblemException if the file contains syntax errors
+	 */
+	public CompilationUnit parse(File file) throws IOException {
+		return parse(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+	}
+
+	/** Parse the source code with the parser of the current thread
+	 *
+	 * @param source
+	 * @return
+	 * @throws ParseProblemException if the source contains syntax errors
+	 */
+	public CompilationUnit parse(String source) {
+		return parse(ParseStart.COMPILATION_UNIT, source);
+	}
+
+	/** Parse a piece of source code, like a statement or a method, with the parser of the current thread
+	 *
+	 * @param start kind of code to parse
+	 * @param source
+	 * @return
+	 * @throws ParseProblemException if the source contains syntax errors
+	 */
+	public <N extends Node> N parse(ParseStart<N> start, String source) {
+		ParseResult<N> result = get().parse(start, Providers.provider(source));
+		if(!result.isSuccessful() || !result.getResult().isPresent())
+			throw new ParseProblemException(result.getProblems());
+		return result.getResult().get();
+	}
+}
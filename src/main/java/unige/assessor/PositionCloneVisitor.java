@@ -0,0 +1,52 @@
+package unige.assessor;
+
+import java.util.Optional;
+
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.NodeList;
+import com.github.javaparser.ast.visitor.CloneVisitor;
+import com.github.javaparser.ast.visitor.Visitable;
+
+/** Clone that gives to each node the position of the node copied
+ * A clone keeps only the positions read by the parser, but the printer places the orphan comments
+ * by the positions of the nodes, also the ones given by the decomposer
+ */
+final class PositionCloneVisitor extends CloneVisitor {
+	
+	/** Copy the node with the same position of each node inside it
+	 * 
+	 * @param node
+	 * @return
+	 */
+	@SuppressWarnings("unchecked")
+	static <T extends Node> T copyOf(T node) {
+		T copy = (T) node.accept(new PositionCloneVisitor(), null);
+		copy.setRange(node.getRange().orElse(null));
+		return copy;
+	}
+	
+	@Override
+	protected <T extends Node> T cloneNode(T node, Object arg) {
+		return withRange(node, super.cloneNode(node, arg));
+	}
+	
+	@Override
+	protected <T extends Node> T cloneNode(Optional<T> node, Object arg) {
+		return withRange(node.orElse(null), super.cloneNode(node, arg));
+	}
+	
+	@Override
+	@SuppressWarnings("rawtypes")
+	public Visitable visit(NodeList nodes, Object arg) {
+		NodeList copies = (NodeList) super.visit(nodes, arg);
+		for(int i=0;i<nodes.size();i++)
+			withRange(nodes.get(i), copies.get(i));
+		return copies;
+	}
+	
+	private static <T extends Node> T withRange(T node, T copy) {
+		if(copy!=null)
+			copy.setRange(node.getRange().orElse(null));
+		return copy;
+	}
+}
@@ -0,0 +1,234 @@
+package unige.assessor;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/** Time, CPU and memory used by each phase of a run, with the counters of the decomposition
+ * A phase can run on many threads at the same time, so the time of a phase is the sum of the time of each thread
+ * and can be longer than the time of the run. CPU time and allocated bytes are read from the ThreadMXBean of the thread
+ * that runs the phase, they are -1 if the JVM doesn't support them.
+ * The report is written as JSON
+ */
+public class RunMetrics {
+
+	/** Phases of a run, in the order they start */
+	public enum Phase {
+		//listing of the input directories
+		DISCOVERY,
+		//reading, hashing and parsing of the input files
+		PARSE,
+		//analysis or replay of the files by the TreeDecomposer
+		DECOMPOSE,
+		//printing and writing of the generated files
+		EMIT
+	}
+
+	//Number of files kept in the report of the slowest files
+	public static final int SLOWEST_FILES = 10;
+	//Values of each phase in the arrays of the totals
+	private static final int CALLS = 0;
+	private static final int WALL = 1;
+	private static final int CPU = 2;
+	private static final int ALLOCATED = 3;
+	private static final int VALUES = 4;
+
+	private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+	private static final boolean CPU_SUPPORTED = THREADS.isCurrentThreadCpuTimeSupported() && THREADS.isThreadCpuTimeEnabled();
+	private static final boolean ALLOCATION_SUPPORTED = allocationSupported();
+
+	private final long start = System.nanoTime();
+	private final AtomicLongArray totals = new AtomicLongArray(Phase.values().length*VALUES);
+	private final Map<String,Long> counters = new LinkedHashMap<>();
+	//The fastest of the slowest files is the first
+	private final PriorityQueue<FileTime> slowestFiles = new PriorityQueue<>(SLOWEST_FILES+1, new Comparator<FileTime>() {
+		public int compare(FileTime a, FileTime b) {
+			return Long.compare(a.total(), b.total());
+		}
+	});
+
+	private static boolean allocationSupported() {
+		if(!(THREADS instanceof com.sun.management.ThreadMXBean))
+			return false;
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) THREADS;
+		return threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled();
+	}
+
+	/** Start to measure a phase on the current thread, the measure must be stopped on the same thread
+	 *
+	 * @param phase
+	 * @return
+	 */
+	public Measure start(Phase phase) {
+		return new Measure(phase);
+	}
+
+	/** Time of a phase on a single thread */
+	public class Measure {
+		private final Phase phase;
+		private final long wall;
+		private final long cpu;
+		private final long allocated;
+
+		private Measure(Phase phase) {
+			this.phase = phase;
+			this.cpu = cpuTime();
+			this.allocated = allocatedBytes();
+			this.wall = System.nanoTime();
+		}
+
+		/** Add the time since the start to the totals of the phase
+		 *
+		 * @return the wall time in nanoseconds
+		 */
+		public long stop() {
+			long elapsed = System.nanoTime()-wall;
+			int base = phase.ordinal()*VALUES;
+			totals.incrementAndGet(base+CALLS);
+			totals.addAndGet(base+WALL, elapsed);
+			if(CPU_SUPPORTED)
+				totals.addAndGet(base+CPU, cpuTime()-cpu);
+			if(ALLOCATION_SUPPORTED)
+				totals.addAndGet(base+ALLOCATED, allocatedBytes()-allocated);
+			return elapsed;
+		}
+	}
+
+	private static long cpuTime() {
+		return CPU_SUPPORTED ? THREADS.getCurrentThreadCpuTime() : -1;
+	}
+
+	private static long allocatedBytes() {
+		if(!ALLOCATION_SUPPORTED)
+			return -1;
+		return ((com.sun.management.ThreadMXBean) THREADS).getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	/** Set the value of a counter, the counters are reported in the order they are set the first time
+	 *
+	 * @param name
+	 * @param value
+	 */
+	public synchronized void count(String name, long value) {
+		counters.put(name, value);
+	}
+
+	/** Add the time of an input file, only the slowest files are kept
+	 *
+	 * @param file
+	 * @param parseNanos time to read and parse the file, 0 if it was replayed from the cache
+	 * @param decomposeNanos time to analyze or replay the file
+	 */
+	public synchronized void fileDone(String file, long parseNanos, long decomposeNanos) {
+		slowestFiles.add(new FileTime(file, parseNanos, decomposeNanos));
+		if(slowestFiles.size()>SLOWEST_FILES)
+			slowestFiles.poll();
+	}
+
+	private static class FileTime {
+		private final String file;
+		private final long parse;
+		private final long decompose;
+
+		FileTime(String file, long parse, long decompose) {
+			this.file = file;
+			this.parse = parse;
+			this.decompose = decompose;
+		}
+
+		long total() {
+			return parse+decompose;
+		}
+	}
+
+	/** Create the JSON report, the times are in milliseconds
+	 *
+	 * @return
+	 */
+	public synchronized String toJson() {
+		StringBuilder json = new StringBuilder("{\n");
+		json.append("\t\"wallMillis\": ").append(millis(System.nanoTime()-start)).append(",\n");
+		json.append("\t\"cpuSupported\": ").append(CPU_SUPPORTED).append(",\n");
+		json.append("\t\"allocationSupported\": ").append(ALLOCATION_SUPPORTED).append(",\n");
+		json.append("\t\"phases\": {");
+		for(Phase phase : Phase.values()) {
+			int base = phase.ordinal()*VALUES;
+			json.append(phase.ordinal()==0 ? "\n" : ",\n");
+			json.append("\t\t").append(quote(phase.name().toLowerCase(Locale.ROOT))).append(": {")
+				.append("\"calls\": ").append(totals.get(base+CALLS))
+				.append(", \"wallMillis\": ").append(millis(totals.get(base+WALL)))
+				.append(", \"cpuMillis\": ").append(CPU_SUPPORTED ? millis(totals.get(base+CPU)) : "-1")
+				.append(", \"allocatedBytes\": ").append(ALLOCATION_SUPPORTED ? totals.get(base+ALLOCATED) : -1)
+				.append('}');
+		}
+		json.append("\n\t},\n");
+		json.append("\t\"counters\": {");
+		String separator = "\n";
+		for(Map.Entry<String,Long> counter : counters.entrySet()) {
+			json.append(separator).append("\t\t").append(quote(counter.getKey())).append(": ").append(counter.getValue());
+			separator = ",\n";
+		}
+		json.append("\n\t},\n");
+		json.append("\t\"slowestFiles\": [");
+		List<FileTime> files = new ArrayList<>(slowestFiles);
+		Collections.sort(files, Collections.reverseOrder(slowestFiles.comparator()));
+		separator = "\n";
+		for(FileTime file : files) {
+			json.append(separator).append("\t\t{\"file\": ").append(quote(file.file))
+				.append(", \"totalMillis\": ").append(millis(file.total()))
+				.append(", \"parseMillis\": ").append(millis(file.parse))
+				.append(", \"decomposeMillis\": ").append(millis(file.decompose))
+				.append('}');
+			separator = ",\n";
+		}
+		json.append("\n\t]\n}\n");
+		return json.toString();
+	}
+
+	private static String millis(long nanos) {
+		return String.format(Locale.ROOT, "%.3f", nanos/1e6);
+	}
+
+	/** Quote the value as a JSON string, also used for the JSON lines of the logs
+	 *
+	 * @param value
+	 * @return
+	 */
+	static String quote(String value) {
+		StringBuilder quoted = new StringBuilder("\"");
+		for(int i=0;i<value.length();i++) {
+			char c = value.charAt(i);
+			switch(c) {
+				case '"':
+					quoted.append("\\\"");
+					break;
+				case '\\':
+					quoted.append("\\\\");
+					break;
+				case '\n':
+					quoted.append("\\n");
+					break;
+				case '\r':
+					quoted.append("\\r");
+					break;
+				case '\t':
+					quoted.append("\\t");
+					break;
+				default:
+					if(c<0x20)
+						quoted.append(String.format("\\u%04x", (int) c));
+					else
+						quoted.append(c);
+			}
+		}
+		return quoted.append('"').toString();
+	}
+}
@@ -0,0 +1,257 @@
+package unige.assessor;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.comments.Comment;
+import com.github.javaparser.ast.expr.AssignExpr;
+import com.github.javaparser.ast.expr.BinaryExpr;
+import com.github.javaparser.ast.expr.Expression;
+import com.github.javaparser.ast.expr.FieldAccessExpr;
+import com.github.javaparser.ast.expr.LiteralStringValueExpr;
+import com.github.javaparser.ast.expr.MethodCallExpr;
+import com.github.javaparser.ast.expr.Name;
+import com.github.javaparser.ast.expr.NameExpr;
+import com.github.javaparser.ast.expr.SimpleName;
+import com.github.javaparser.ast.stmt.AssertStmt;
+import com.github.javaparser.ast.stmt.ExpressionStmt;
+import com.github.javaparser.ast.stmt.LabeledStmt;
+
+/** Classify a statement of a test method with a single visit of its nodes, without printing it
+ * The result gives the same answers of the checks on the printed statement used by the TreeDecomposer:
+ * the words are searched in identifiers, literals and comments, that are the only parts of the printed code where they can appear
+ */
+public class StatementClassifier {
+	//Delimiter generated from SeleniumIDE Extension: System.out.println("{ASSESSOR}:pageObject:pageMethod");
+	private static final String DELIMITER_PREFIX = "{ASSESSOR}";
+	private static final String DELIMITER_BACK_TO_MAIN = DELIMITER_PREFIX+"backToMain";
+
+	/** Kind of a statement, a statement has only one kind, but more than one of the flags can be true */
+	public enum Kind { DELIMITER, BACK_TO_MAIN, ASSERT, SEND_KEYS, CLICK, PLAIN }
+
+	/** Result of the classification of a statement */
+	public static final class Classification {
+		private Kind kind = Kind.PLAIN;
+		private String pageObjectName;
+		private String pageMethodName;
+		private boolean assertCall;
+		private boolean click;
+		private boolean sendKeys;
+		private boolean xpath;
+		private boolean findElement;
+
+		public Kind getKind() {
+			return kind;
+		}
+
+		/** @return true for {ASSESSOR}:pageObject:pageMethod and {ASSESSOR}backToMain */
+		public boolean isDelimiter() {
+			return kind==Kind.DELIMITER || kind==Kind.BACK_TO_MAIN;
+		}
+
+		/** @return the PageObject name written in the delimiter, as it is written */
+		public String getPageObjectName() {
+			return pageObjectName;
+		}
+
+		/** @return the PageObject method name written in the delimiter */
+		public String getPageMethodName() {
+			return pageMethodName;
+		}
+
+		/** @return true if the statement starts with assert */
+		public boolean isAssert() {
+			return assertCall;
+		}
+
+		/** @return true if the statement contains click */
+		public boolean containsClick() {
+			return click;
+		}
+
+		/** @return true if the statement contains sendKeys */
+		public boolean containsSendKeys() {
+			return sendKeys;
+		}
+
+		/** @return true if the statement contains By.xpath */
+		public boolean containsXPath() {
+			return xpath;
+		}
+
+		/** @return true if the statement contains driver.findElement */
+		public boolean containsFindElement() {
+			return findElement;
+		}
+	}
+
+	private StatementClassifier() {
+	}
+
+	/** Classify the node, a statement or a comment of a method body
+	 *
+	 * @param node
+	 * @return the classification, never null
+	 */
+	public static Classification classify(Node node) {
+		Classification result = new Classification();
+		if(checkDelimiter(node, result))
+			return result;
+		visitNodes(node, result);
+		result.assertCall = startsWithAssert(node);
+		if(result.assertCall)
+			result.kind = Kind.ASSERT;
+		else if(result.sendKeys)
+			result.kind = Kind.SEND_KEYS;
+		else if(result.click)
+			result.kind = Kind.CLICK;
+		return result;
+	}
+
+	/** Check if the statement is System.out.println("{ASSESSOR}:pageObject:pageMethod") or System.out.println("{ASSESSOR}backToMain")
+	 *
+	 * @param node
+	 * @param result
+	 * @return true if it is a delimiter
+	 */
+	private static boolean checkDelimiter(Node node, Classification result) {
+		if(!(node instanceof ExpressionStmt) || !((ExpressionStmt) node).getExpression().isMethodCallExpr())
+			return false;
+		MethodCallExpr call = ((ExpressionStmt) node).getExpression().asMethodCallExpr();
+		if(!isPrintln(call) || !call.getArgument(0).isStringLiteralExpr())
+			return false;
+		String value = call.getArgument(0).asStringLiteralExpr().getValue();
+		if(!value.startsWith(DELIMITER_PREFIX))
+			return false;
+		String[] values = value.replace("\"", "").split(":");
+		if(values.length==3) {
+			result.kind = Kind.DELIMITER;
+			result.pageObjectName = values[1];
+			result.pageMethodName = values[2];
+			return true;
+		}
+		//The end delimiter must be exactly the instruction, also without comments
+		if(DELIMITER_BACK_TO_MAIN.equals(value) && !node.getComment().isPresent()) {
+			result.kind = Kind.BACK_TO_MAIN;
+			return true;
+		}
+		return false;
+	}
+
+	private static boolean isPrintln(MethodCallExpr call) {
+		if(!"println".equals(call.getNameAsString()) || call.getArguments().size()!=1 || call.getTypeArguments().isPresent()
+				|| !call.getScope().isPresent() || !call.getScope().get().isFieldAccessExpr())
+			return false;
+		FieldAccessExpr out = call.getScope().get().asFieldAccessExpr();
+		return "out".equals(out.getNameAsString()) && out.getScope().isNameExpr()
+				&& "System".equals(out.getScope().asNameExpr().getNameAsString());
+	}
+
+	/** Visit all the nodes of the statement, comments included, to search the words
+	 *
+	 * @param root
+	 * @param result
+	 */
+	private static void visitNodes(Node root, Classification result) {
+		Deque<Node> toVisit = new ArrayDeque<>();
+		toVisit.push(root);
+		while(!toVisit.isEmpty()) {
+			Node node = toVisit.pop();
+			if(node instanceof SimpleName) {
+				checkText(((SimpleName) node).getIdentifier(), result);
+			}else if(node instanceof Name) {
+				checkText(((Name) node).getIdentifier(), result);
+			}else if(node instanceof LiteralStringValueExpr) {
+				checkText(((LiteralStringValueExpr) node).getValue(), result);
+			}else if(node instanceof Comment) {
+				checkText(((Comment) node).getContent(), result);
+			}else if(node instanceof MethodCallExpr) {
+				checkCall((MethodCallExpr) node, result);
+			}
+			for(Node child : node.getChildNodes())
+				toVisit.push(child);
+		}
+	}
+
+	private static void checkText(String text, Classification result) {
+		if(text.contains("click"))
+			result.click = true;
+		if(text.contains("sendKeys"))
+			result.sendKeys = true;
+		if(text.contains("driver.findElement"))
+			result.findElement = true;
+		if(text.contains("By.xpath"))
+			result.xpath = true;
+	}
+
+	/** Search for driver.findElement(s) and By.xpath calls
+	 *
+	 * @param call
+	 * @param result
+	 */
+	private static void checkCall(MethodCallExpr call, Classification result) {
+		if(!call.getScope().isPresent() || call.getTypeArguments().isPresent())
+			return;
+		String scopeName = lastIdentifier(call.getScope().get());
+		if(scopeName==null)
+			return;
+		if(call.getNameAsString().startsWith("findElement") && scopeName.endsWith("driver"))
+			result.findElement = true;
+		if(call.getNameAsString().startsWith("xpath") && scopeName.endsWith("By"))
+			result.xpath = true;
+	}
+
+	/** Return the last identifier of a scope like driver or this.driver
+	 *
+	 * @param scope
+	 * @return the identifier or null if the scope doesn't end with an identifier
+	 */
+	private static String lastIdentifier(Expression scope) {
+		if(scope.isNameExpr())
+			return scope.asNameExpr().getNameAsString();
+		if(scope.isFieldAccessExpr())
+			return scope.asFieldAccessExpr().getNameAsString();
+		return null;
+	}
+
+	/** Check if the printed statement starts with assert, a comment is printed before the statement
+	 *
+	 * @param node
+	 * @return
+	 */
+	private static boolean startsWithAssert(Node node) {
+		if(node.getComment().isPresent())
+			return false;
+		if(node instanceof AssertStmt)
+			return true;
+		if(node instanceof LabeledStmt)
+			return ((LabeledStmt) node).getLabel().getIdentifier().startsWith("assert");
+		if(node instanceof ExpressionStmt)
+			return startsWithAssert(((ExpressionStmt) node).getExpression());
+		return false;
+	}
+
+	private static boolean startsWithAssert(Expression expression) {
+		if(expression.getComment().isPresent())
+			return false;
+		if(expression instanceof MethodCallExpr) {
+			MethodCallExpr call = (MethodCallExpr) expression;
+			if(call.getScope().isPresent())
+				return startsWithAssert(call.getScope().get());
+			return !call.getTypeArguments().isPresent() && call.getNameAsString().startsWith("assert");
+		}
+		if(expression instanceof NameExpr)
+			return ((NameExpr) expression).getNameAsString().startsWith("assert");
+		if(expression instanceof FieldAccessExpr)
+			return startsWithAssert(((FieldAccessExpr) expression).getScope());
+		if(expression instanceof AssignExpr)
+			return startsWithAssert(((AssignExpr) expression).getTarget());
+		if(expression instanceof BinaryExpr)
+			return startsWithAssert(((BinaryExpr) expression).getLeft());
+		if(expression.isLiteralExpr())
+			return false;
+		//Uncommon expression, the printed code is the only safe answer
+		return expression.toString().startsWith("assert");
+	}
+}
@@ -1,70 +1,234 @@
 package unige.assessor;
 
-import java.util.Date;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 
+import com.github.javaparser.Position;
+import com.github.javaparser.Range;
 import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.ImportDeclaration;
 import com.github.javaparser.ast.Modifier;
 import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.NodeList;
 import com.github.javaparser.ast.body.BodyDeclaration;
 import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
-import com.github.javaparser.ast.body.ConstructorDeclaration;
 import com.github.javaparser.ast.body.FieldDeclaration;
 import com.github.javaparser.ast.body.MethodDeclaration;
 import com.github.javaparser.ast.body.Parameter;
+import com.github.javaparser.ast.body.TypeDeclaration;
 import com.github.javaparser.ast.body.VariableDeclarator;
+import com.github.javaparser.ast.comments.BlockComment;
 import com.github.javaparser.ast.comments.Comment;
+import com.github.javaparser.ast.comments.JavadocComment;
+import com.github.javaparser.ast.comments.LineComment;
 import com.github.javaparser.ast.expr.AnnotationExpr;
 import com.github.javaparser.ast.expr.BinaryExpr;
 import com.github.javaparser.ast.expr.EnclosedExpr;
 import com.github.javaparser.ast.expr.Expression;
-import com.github.javaparser.ast.expr.LiteralExpr;
 import com.github.javaparser.ast.expr.MethodCallExpr;
 import com.github.javaparser.ast.expr.NameExpr;
+import com.github.javaparser.ast.expr.ObjectCreationExpr;
 import com.github.javaparser.ast.expr.SimpleName;
 import com.github.javaparser.ast.expr.StringLiteralExpr;
 import com.github.javaparser.ast.expr.VariableDeclarationExpr;
 import com.github.javaparser.ast.stmt.AssertStmt;
 import com.github.javaparser.ast.stmt.BlockStmt;
 import com.github.javaparser.ast.stmt.ExpressionStmt;
+import com.github.javaparser.ast.stmt.ReturnStmt;
 import com.github.javaparser.ast.stmt.Statement;
+import com.github.javaparser.ast.type.ClassOrInterfaceType;
+import com.github.javaparser.ast.type.PrimitiveType;
+import com.github.javaparser.ast.type.VoidType;
+import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
+import com.github.javaparser.printer.DefaultPrettyPrinter;
+import com.github.javaparser.printer.Printer;
+
+import unige.assessor.Contribution.Operation;
+import unige.assessor.StatementClassifier.Classification;
+import unige.assessor.StatementClassifier.Kind;
 
 public class TreeDecomposer {
-	//Delimiter generated from SeleniumIDE Extension
-	private static final String DELIMITER_PO_DECLARATION = "System.out.println(\"{ASSESSOR}";
-	private static final String DELIMITER_BACK_TO_MAIN = DELIMITER_PO_DECLARATION+"backToMain\");";
-	
 	
+	/** Events of the decomposition counted for the report of the run */
+	public enum Counter {
+		//PageObject classes created
+		PAGE_OBJECTS_CREATED("pageObjectsCreated"),
+		//methods added to the generated classes
+		METHODS_ADDED("methodsAdded"),
+		//methods not added because an identical method is already in the class
+		METHODS_UNIFIED("methodsUnified"),
+		//methods added with a new name because the name is already used
+		METHODS_RENAMED("methodsRenamed"),
+		//getters already defined in the PageObject used for an assert
+		GETTERS_REUSED("gettersReused"),
+		//PageObject methods without statements, not added
+		EMPTY_METHODS_DISCARDED("emptyMethodsDiscarded");
+		
+		private final String key;
+		
+		Counter(String key) {
+			this.key = key;
+		}
+		
+		/**
+		 * @return the name of the counter in the report
+		 */
+		public String getKey() {
+			return key;
+		}
+	}
 	
-	//Key for share data between methods
-	private static final String KEY_HASH_PO_NAME = "pageObjectName";
-	private static final String KEY_HASH_PO_METHOD = "pageMethodName";
 	//Standard prefix for all the PO Object
 	private final String PO_PREFIX;
-	//List of base Imports
-	private List<ImportDeclaration> baseImports = new LinkedList<>();
+	//Set of base Imports, in the order they are found
+	private final ImportSet baseImports = new ImportSet();
+	//Imports of the Main Compilation Unit, applied to the unit only when the units are requested
+	private final List<ImportDeclaration> centralImports = new ArrayList<>();
+	//For each PageObject, the number of base imports declared when its unit was created
+	private final Map<String,Integer> pageObjectImports = new ConcurrentHashMap<>();
 	//Base Package name
 	private final String basePackage = "TestCases";
-	//List of all CompilationUnit (alias Java File)
+	//The test suite and the helper CompilationUnit, the units of the PageObjects are built from their model only when they are needed
 	private final List<CompilationUnit> units = new LinkedList<>();
+	//Index by name of all the classes declared in the units, and of the PageObjects
+	private final PageObjectRegistry registry = new PageObjectRegistry();
+	//Index of methods and fields for each class where members are added, the PageObjects have their own index in the model
+	private final Map<ClassOrInterfaceDeclaration,MemberIndex> memberIndexes = new IdentityHashMap<>();
 	//Main Compilation Unit
 	private final CompilationUnit centralUnit;
 	//Main Class for write all the Test Method
 	private final ClassOrInterfaceDeclaration centralClass;
-	//List of Logs
-	private final List<String> logs = new LinkedList<>();
+	//Unit of the MyUtils class
+	private CompilationUnit helperUnit;
+	//Receives the warnings, by default they are kept in the list of logs
+	private final WarningSink warnings;
+	//List of Logs, used only without a WarningSink
+	private final List<String> logs = new ArrayList<>();
+	private final LogSink.TimeFormat logTime = new LogSink.TimeFormat();
 	//Normalize PO Name to lower case
 	private final boolean normalize;
+	//Names of the getters of the locators, shared with the decomposers of the same suite
+	private final LocatorCatalog locators;
+	//Move the statements from the analyzed units instead of copying them
+	private final boolean moveNodes;
+	//Operations done for the file analyzed, null if they are not recorded
+	private Contribution recording;
+	//True if the recording also keeps a copy of the nodes, so the contribution is replayed without parsing it
+	private boolean recordNodes;
+	//Disk storage of the streaming mode, null if all the units are kept in memory
+	private final UnitSpool spool;
+	//Parser for the PageObjects loaded again from the spool
+	private static final ParserFactory PARSERS = ParserFactory.parseOnly();
+	//One printer for each thread that prints the units, the units can be printed on many threads at the same time
+	private static final ThreadLocal<Printer> PRINTERS = new ThreadLocal<Printer>() {
+		@Override
+		protected Printer initialValue() {
+			return new DefaultPrettyPrinter();
+		}
+	};
+	//Position of a statement parsed alone, given to the statements built by the decomposer
+	private static final Range PARSED_STATEMENT = new Range(new Position(1, 1), new Position(1, 1));
+	//Value of each Counter, by ordinal
+	private final AtomicIntegerArray counters = new AtomicIntegerArray(Counter.values().length);
+	//File replayed by the current thread of the concurrent replay, null in the other cases
+	private final ThreadLocal<ReplayFile> replaying = new ThreadLocal<>();
+	//Position of the operation that created each PageObject in a sequential replay, used only by the concurrent replay
+	private final Map<String,Long> pageObjectOrder = new ConcurrentHashMap<>();
+	//Imports of the main compilation unit found by the concurrent replay, with the position of the operation that found them
+	private final List<ReplayImport> replayImports = Collections.synchronizedList(new ArrayList<>());
+	//State before the file analyzed or replayed, to undo the file if it fails. Null outside of a file
+	private FileTransaction transaction;
+	//Time budget of each file in nanoseconds, 0 for no limit
+	private long fileBudgetNanos;
 	
+	/** Create a decomposer that doesn't change the analyzed units, each statement is copied
+	 * 
+	 * @param normalize
+	 * @param poPrefix
+	 */
 	public TreeDecomposer(boolean normalize, String poPrefix) {
+		this(normalize, poPrefix, false);
+	}
+	
+	/** Create a decomposer
+	 * In move mode the statements are detached from the analyzed units and attached to the new units, a statement is copied
+	 * only when it is needed in two places. The analyzed units can't be used after the analysis
+	 * 
+	 * @param normalize
+	 * @param poPrefix
+	 * @param moveNodes true for the move mode
+	 */
+	public TreeDecomposer(boolean normalize, String poPrefix, boolean moveNodes) {
+		this(normalize, poPrefix, moveNodes, null);
+	}
+	
+	/** Create a decomposer in streaming mode, the memory used doesn't grow with the number of test methods and PageObjects
+	 * After each file the members of the test suite class are written in the spool, and the PageObjects not used
+	 * recently are saved in the spool and loaded again only when they are needed.
+	 * The units must be written with {@link #emitUnits(UnitEmitter)}, {@link #getUnits()} is not supported
+	 * 
+	 * @param normalize
+	 * @param poPrefix
+	 * @param moveNodes true for the move mode
+	 * @param spool storage for the units, null to keep all the units in memory
+	 */
+	public TreeDecomposer(boolean normalize, String poPrefix, boolean moveNodes, UnitSpool spool) {
+		this(normalize, poPrefix, moveNodes, spool, null);
+	}
+	
+	/** Create a decomposer that gives the warnings to the sink instead of keeping them in memory
+	 * 
+	 * @param normalize
+	 * @param poPrefix
+	 * @param moveNodes true for the move mode
+	 * @param spool storage for the units, null to keep all the units in memory
+	 * @param warnings receives the warnings, null to keep them in the list of {@link #getLogs()}
+	 */
+	public TreeDecomposer(boolean normalize, String poPrefix, boolean moveNodes, UnitSpool spool, WarningSink warnings) {
+		this(normalize, poPrefix, moveNodes, spool, warnings, new LocatorCatalog());
+	}
+	
+	/** Create a decomposer that shares the catalog of the locators, the decomposers that analyze the files of the same suite
+	 * compute the getter names of each locator only once
+	 * 
+	 * @param normalize
+	 * @param poPrefix
+	 * @param moveNodes true for the move mode
+	 * @param spool storage for the units, null to keep all the units in memory
+	 * @param warnings receives the warnings, null to keep them in the list of {@link #getLogs()}
+	 * @param locators catalog of the locators of the suite
+	 */
+	public TreeDecomposer(boolean normalize, String poPrefix, boolean moveNodes, UnitSpool spool, WarningSink warnings, LocatorCatalog locators) {
+		this.moveNodes = moveNodes;
+		this.locators = locators;
+		this.spool = spool;
+		this.warnings = warnings!=null ? warnings : (code, message) -> addLog("Warning: "+message);
 		centralUnit = new CompilationUnit();	
-		centralUnit.addImport("org.junit.BeforeClass");
+		addImport(centralUnit,new ImportDeclaration("org.junit.BeforeClass",false,false));
 		centralClass = createClass(centralUnit,basePackage);
+		registry.registerClass(centralClass);
 		this.normalize = normalize;
 		this.PO_PREFIX = poPrefix;
 		_addBeforeClassStaticMethod(centralClass);		
@@ -80,6 +244,7 @@ public class TreeDecomposer {
 		myUtils.addImport("org.openqa.selenium.support.ui.WebDriverWait");
 		myUtils.setPackageDeclaration(basePackage+".PO");
 		ClassOrInterfaceDeclaration clazz = myUtils.addClass("MyUtils").setPublic(true).setAbstract(true);
+		registry.registerClass(clazz);
 		MethodDeclaration method = clazz.addMethod("WaitForElementLoaded", Modifier.Keyword.PUBLIC)
 				.setStatic(true).setType("void");
 		method.addAndGetParameter("WebDriver", "driver");
@@ -93,6 +258,7 @@ public class TreeDecomposer {
 				+ "		});");		
 		method.setBody(block);	
 		units.add(myUtils);
+		helperUnit = myUtils;
 	}
 
 	private void _addBeforeClassStaticMethod(ClassOrInterfaceDeclaration classToAdd) {
@@ -104,52 +270,953 @@ public class TreeDecomposer {
 		
 	}
 
-	/** Returns all the compilation unit created
+	/** Returns all the PageObject classes in the order they are created, the classes are built from their model at each call
+	 * In streaming mode only the PageObjects in memory are returned
+	 * 
+	 * @return pageObjects
+	 */
+	public List<ClassOrInterfaceDeclaration> getPageObjects() {
+		List<ClassOrInterfaceDeclaration> pageObjects = new ArrayList<>();
+		for(PageObjectModel pageObject : registry.getPageObjects())
+			pageObjects.add(buildPageObject(pageObject).getClassByName(pageObject.getName()).get());
+		return pageObjects;
+	}
+
+	/** Returns all the compilation unit created, with all the imports applied
+	 * The units of the PageObjects are built from their model at each call
 	 * 
 	 * @return units
 	 */
-	public List<CompilationUnit> getUnits() {		
-		return units;
+	public List<CompilationUnit> getUnits() {
+		if(spool!=null)
+			throw new IllegalStateException("In streaming mode the units are not all in memory, use emitUnits");
+		ImportSet.apply(centralUnit, centralImports);
+		List<CompilationUnit> allUnits = new ArrayList<>(units);
+		for(PageObjectModel pageObject : registry.getPageObjects())
+			allUnits.add(buildPageObject(pageObject));
+		return allUnits;
+	}
+	
+	/** Build the unit of the PageObject from its model, with its imports
+	 * 
+	 * @param pageObject
+	 * @return
+	 */
+	private CompilationUnit buildPageObject(PageObjectModel pageObject) {
+		CompilationUnit unit = pageObject.toCompilationUnit(basePackage+".PO");
+		ImportSet.apply(unit, baseImports.firstImports(pageObjectImports.get(pageObject.getName())));
+		return unit;
+	}
+	
+	/** Receives the source code of each unit created */
+	public interface UnitEmitter {
+		/**
+		 * @param className name of the class declared by the unit
+		 * @param testSuite true for the test suite unit, the other units are in the PageObject package
+		 * @param source
+		 * @throws IOException
+		 */
+		void emit(String className, boolean testSuite, OutputWriter.Content source) throws IOException;
+	}
+	
+	/** Give all the units created to the emitter, with all the imports applied: the test suite unit, the helper unit
+	 * and the PageObjects in the order they are created.
+	 * The units of the PageObjects are built and printed by the emitter, so they can be built on many threads.
+	 * In streaming mode the test suite is printed from the spool and each PageObject is loaded only while it is emitted,
+	 * the decomposer can't be used after this call
+	 * 
+	 * @param emitter
+	 * @throws IOException
+	 */
+	public void emitUnits(UnitEmitter emitter) throws IOException {
+		if(spool==null) {
+			ImportSet.apply(centralUnit, centralImports);
+			for(CompilationUnit unit : units)
+				emit(emitter, unit, writer -> writer.write(print(unit)));
+			for(PageObjectModel pageObject : registry.getPageObjects())
+				emitPageObject(emitter, pageObject);
+			return;
+		}
+		flushTestSuite();
+		ImportSet.apply(centralUnit, centralImports);
+		//The class is empty, the members are written before its closing bracket
+		String testSuite = print(centralUnit);
+		int classEnd = testSuite.lastIndexOf('}');
+		emit(emitter, centralUnit, writer -> {
+			writer.write(testSuite, 0, classEnd);
+			spool.writeTestSuite(writer);
+			writer.write(testSuite, classEnd, testSuite.length()-classEnd);
+		});
+		emit(emitter, helperUnit, writer -> writer.write(print(helperUnit)));
+		for(String name : registry.getPageObjectNames()) {
+			emitPageObject(emitter, getPageObject(name));
+			removePageObject(name);
+		}
+	}
+	
+	/** Give the unit to the emitter, the source is printed inside an EmitUnit event on the thread that prints it
+	 * 
+	 * @param emitter
+	 * @param unit
+	 * @param source
+	 * @throws IOException
+	 */
+	private void emit(UnitEmitter emitter, final CompilationUnit unit, final OutputWriter.Content source) throws IOException {
+		emitter.emit(unit.getType(0).getNameAsString(), unit==centralUnit, writer -> {
+			AssessorEvents.EmitUnit event = new AssessorEvents.EmitUnit();
+			event.begin();
+			source.writeTo(writer);
+			event.end();
+			commitEmit(event, unit, false);
+		});
+	}
+	
+	/** Give the PageObject to the emitter, its unit is built and printed inside an EmitUnit event on the thread that prints it
+	 * The model is not changed after this call, so it can be read by another thread
+	 * 
+	 * @param emitter
+	 * @param pageObject
+	 * @throws IOException
+	 */
+	private void emitPageObject(UnitEmitter emitter, final PageObjectModel pageObject) throws IOException {
+		pageObject.seal();
+		emitter.emit(pageObject.getName(), false, writer -> {
+			AssessorEvents.EmitUnit event = new AssessorEvents.EmitUnit();
+			event.begin();
+			CompilationUnit unit = buildPageObject(pageObject);
+			writer.write(print(unit));
+			event.end();
+			commitEmit(event, unit, true);
+		});
+	}
+	
+	private static void commitEmit(AssessorEvents.EmitUnit event, CompilationUnit unit, boolean pageObject) {
+		if(event.shouldCommit()) {
+			event.className = unit.getType(0).getNameAsString();
+			event.pageObject = pageObject;
+			event.statements = unit.findAll(Statement.class).size();
+			event.commit();
+		}
+	}
+	
+	/** Print the unit with the printer of the current thread
+	 * 
+	 * @param unit
+	 * @return
+	 */
+	private static String print(CompilationUnit unit) {
+		return PRINTERS.get().print(unit);
+	}
+	
+	/**
+	 * @return true in streaming mode, where the test suite is printed from the spool
+	 */
+	public boolean isStreaming() {
+		return spool!=null;
+	}
+	
+	/** Give a time budget to each file analyzed or replayed, a file that needs more time is stopped with a
+	 * {@link FileBudgetExceededException} and undone like a file that fails. The concurrent replay doesn't check the budget
+	 * 
+	 * @param millis budget of each file in milliseconds, 0 for no limit
+	 */
+	public void setFileBudget(long millis) {
+		fileBudgetNanos = TimeUnit.MILLISECONDS.toNanos(millis);
 	}
 
 	
 	/** Starting Point to analyze a Java File
 	 * For each import in this file, if the import wasn't declared in the Main Compilation unit, this import will be added
-	 * Also because the import is needed for the test method, this import will be added to the PageObject class
+	 * Also because the import is needed for the test method, this import will be added to the PageObject class.
+	 * The file is a transaction: if the analysis fails or it needs more than the time budget, all the changes of the file
+	 * to the test suite and to the PageObjects are undone, its warnings are dropped and the exception is thrown again
 	 * @param unitToAnalyze
 	 */
 	public void analyzeCompilationUnit(CompilationUnit unitToAnalyze) {
-		List<ImportDeclaration> imports = unitToAnalyze.findAll(ImportDeclaration.class);
-		for(ImportDeclaration importDecl : imports) {
-			if(baseImports.contains(importDecl)) continue;
-			baseImports.add(importDecl);
-			addImport(centralUnit,importDecl);
+		beginFile();
+		try {
+			//A single visit of the unit: imports, classes and their members, the method bodies are read only by analyzeMethod
+			unitToAnalyze.accept(new DeclarationVisitor(), null);
+		}catch(RuntimeException | StackOverflowError e) {
+			rollbackFile();
+			throw e;
 		}
- 		//Search for all the Class declaration in the files
- 		for(ClassOrInterfaceDeclaration classToAnalyze : unitToAnalyze.findAll(ClassOrInterfaceDeclaration.class))
- 			analyzeClass(classToAnalyze); 		 		
+		commitFile();
+		releaseMemory();
  	}
 	
+	/** Analyze a Java File like {@link #analyzeCompilationUnit(CompilationUnit)} and record the operations done
+	 * The contribution can be replayed later by {@link #replayContribution(Contribution)}, instead of analyzing the same file again
+	 * 
+	 * @param unitToAnalyze
+	 * @return the operations done for the file
+	 */
+	public Contribution analyzeAndRecord(CompilationUnit unitToAnalyze) {
+		return analyzeAndRecord(unitToAnalyze, false);
+	}
+	
+	/** Analyze a Java File like {@link #analyzeAndRecord(CompilationUnit)}, the contribution also keeps a copy of the nodes
+	 * given to each operation, so another decomposer replays it without parsing the recorded code again
+	 * 
+	 * @param unitToAnalyze
+	 * @return the operations done for the file, with their nodes
+	 */
+	public Contribution analyzeForReplay(CompilationUnit unitToAnalyze) {
+		return analyzeAndRecord(unitToAnalyze, true);
+	}
+	
+	private Contribution analyzeAndRecord(CompilationUnit unitToAnalyze, boolean keepNodes) {
+		recording = new Contribution();
+		recordNodes = keepNodes;
+		try {
+			analyzeCompilationUnit(unitToAnalyze);
+			return recording;
+		}finally {
+			recording = null;
+		}
+	}
+	
+	/** Do again all the operations recorded for a file, the result is the same of analyzing the file in this point
+	 * The methods of the PageObjects are unified or renamed again, because this depends on the files analyzed before.
+	 * If an operation fails, all the operations of the file are undone like in {@link #analyzeCompilationUnit(CompilationUnit)}
+	 * 
+	 * @param contribution
+	 */
+	public void replayContribution(Contribution contribution) {
+		beginFile();
+		try {
+			MethodDeclaration methodTestSuite = null;
+			for(Contribution.Entry entry : contribution.getEntries()) {
+				checkFileBudget();
+				methodTestSuite = replayEntry(entry, methodTestSuite);
+			}
+		}catch(RuntimeException | StackOverflowError e) {
+			rollbackFile();
+			throw e;
+		}
+		commitFile();
+		releaseMemory();
+	}
+	
+	/** Do again a single operation recorded for a file, with the nodes parsed when the contribution was resolved
+	 * 
+	 * @param entry
+	 * @param methodTestSuite the last test method created by the file
+	 * @return the last test method created by the file, after the operation
+	 */
+	private MethodDeclaration replayEntry(Contribution.Entry entry, MethodDeclaration methodTestSuite) {
+		List<String> values = entry.getValues();
+		switch(entry.getOperation()) {
+			case IMPORT:
+				addBaseImport((ImportDeclaration) entry.takeNode(0));
+				break;
+			case FIELD:
+				addTestField(((BodyDeclaration<?>) entry.takeNode(0)).asFieldDeclaration());
+				break;
+			case METHOD:
+				analyzeMethod((MethodDeclaration) entry.takeNode(0));
+				break;
+			case TEST_METHOD:
+				NodeList<AnnotationExpr> annotations = new NodeList<>();
+				for(int i=1;i<values.size();i++)
+					annotations.add((AnnotationExpr) entry.takeNode(i));
+				return addTestMethod(values.get(0), annotations);
+			case STATEMENT:
+				methodTestSuite.getBody().get().addStatement(setPosition((Statement) entry.takeNode(0), values.get(1)));
+				break;
+			case COMMENT:
+				methodTestSuite.getBody().get().addOrphanComment(setPosition(createComment(values.get(0), values.get(1)), values.get(2)));
+				break;
+			case PAGE_OBJECT:
+				usePageObject(values.get(0));
+				break;
+			case PAGE_OBJECT_CALL:
+				List<Node> callValues = new LinkedList<>();
+				List<NameExpr> arguments = new LinkedList<>();
+				for(int i=3;i<values.size();i+=2) {
+					callValues.add(entry.takeNode(i));
+					arguments.add(new NameExpr(values.get(i+1)));
+				}
+				addPageObjectCall(methodTestSuite, getPageObject(values.get(0)), (MethodDeclaration) entry.takeNode(2), 
+						values.get(1), callValues, arguments);
+				break;
+			case ASSERT:
+				analyzeAssertCallExpStmt(methodTestSuite, getPageObject(values.get(0)), values.get(1), 
+						((Statement) entry.takeNode(2)).asExpressionStmt());
+				break;
+			case BLOCK_ASSERT:
+				generateAssertCallBlockStmt(methodTestSuite, getPageObject(values.get(0)), values.get(1), 
+						(BlockStmt) entry.takeNode(2), new LinkedList<>(), new LinkedList<>());
+				break;
+		}
+		return methodTestSuite;
+	}
+	
+	/* Concurrent mode */
+	
+	/** Start the replay of many files at the same time, the result is the same of replaying them in order
+	 * with {@link #replayContribution(Contribution)}. Not supported in streaming mode
+	 * 
+	 * @param threads number of files replayed at the same time
+	 * @param completion receives each file when it is complete, in file order
+	 * @return
+	 */
+	public ConcurrentReplay replayConcurrently(int threads, FileCompletion completion) {
+		if(spool!=null)
+			throw new IllegalStateException("The concurrent replay is not supported in streaming mode");
+		return new ConcurrentReplay(threads, completion);
+	}
+	
+	/** Receives the files of the concurrent replay in file order, before the warnings of the next file are given */
+	public interface FileCompletion {
+		/**
+		 * @param index position of the file in the order it was submitted
+		 * @param failure the error that stopped the file, null if the file is replayed. A file that failed has no changes
+		 * @throws IOException
+		 */
+		void completed(int index, Throwable failure) throws IOException;
+	}
+	
+	/** Return the PageObject used by the operation, null if the operation uses only the test suite
+	 * 
+	 * @param entry
+	 * @return
+	 */
+	private static String pageObjectOf(Contribution.Entry entry) {
+		switch(entry.getOperation()) {
+			case PAGE_OBJECT:
+			case PAGE_OBJECT_CALL:
+			case ASSERT:
+			case BLOCK_ASSERT:
+				return entry.getValues().get(0);
+			default:
+				return null;
+		}
+	}
+	
+	/** Replay of the contributions of many files at the same time, with a lock for each PageObject
+	 * Each PageObject changes in the same order of a sequential replay: a file uses a PageObject only after the previous file
+	 * that uses it has done all its operations, so the methods are unified and renamed in the same way.
+	 * If a file fails, its changes to the PageObjects are undone before the next files can use them.
+	 * The test methods of a file are created outside the test suite class, and a final pass in file order adds the imports,
+	 * the test methods, the fields and the setUp/tearDown methods to the test suite class, gives the warnings and the counters
+	 * of each file, and puts the PageObjects in the order they are created by a sequential replay.
+	 * Each file is given to the {@link FileCompletion} when it is complete, in file order, with its failure if it was skipped
+	 */
+	public class ConcurrentReplay implements Closeable {
+		private final ExecutorService pool;
+		//Files not yet added to the test suite, in file order
+		private final Deque<ReplayFile> pending = new ArrayDeque<>();
+		//For each PageObject, released when the last file submitted that uses it has done its operations on it
+		private final Map<String,CountDownLatch> lastRelease = new HashMap<>();
+		private final int window;
+		private final FileCompletion completion;
+		private int files;
+		
+		private ConcurrentReplay(int threads, FileCompletion completion) {
+			pool = Executors.newFixedThreadPool(threads, new ReplayThreadFactory());
+			window = threads*4;
+			this.completion = completion;
+		}
+		
+		/** Start the replay of the next file, the contributions must be submitted in file order
+		 * 
+		 * @param contribution
+		 * @throws IOException if the completion of a file fails
+		 */
+		public void submit(Contribution contribution) throws IOException {
+			List<Contribution.Entry> entries = contribution.getEntries();
+			final ReplayFile file = new ReplayFile(files++, contribution);
+			for(Contribution.Entry entry : entries) {
+				String pageObject = pageObjectOf(entry);
+				if(pageObject!=null && !file.released.containsKey(pageObject)) {
+					CountDownLatch released = new CountDownLatch(1);
+					file.previous.put(pageObject, lastRelease.get(pageObject));
+					file.released.put(pageObject, released);
+					lastRelease.put(pageObject, released);
+				}
+			}
+			file.result = pool.submit(() -> {
+				replayFile(file);
+				return null;
+			});
+			pending.add(file);
+			//The files already replayed are added to the test suite, and at most window files are waiting
+			while(!pending.isEmpty() && (pending.peek().result.isDone() || pending.size()>window))
+				complete(pending.poll());
+		}
+		
+		/** Wait for all the files submitted and add them to the test suite
+		 * 
+		 * @throws IOException if the completion of a file fails
+		 */
+		public void finish() throws IOException {
+			while(!pending.isEmpty())
+				complete(pending.poll());
+			lastRelease.clear();
+			sortPageObjects();
+			sortImports();
+		}
+		
+		/** Add the imports and the test suite members of a file, after all the files before it
+		 * If these operations fail, they are undone, but the changes of the file to the PageObjects are kept
+		 * because the next files could have already used them
+		 * 
+		 * @param file
+		 * @throws IOException if the completion of the file fails
+		 */
+		private void complete(ReplayFile file) throws IOException {
+			try {
+				file.result.get();
+			}catch(InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Interrupted while the files are replayed", e);
+			}catch(ExecutionException e) {
+				//The failures of the operations are kept in the file, the replay stops only if it is interrupted
+				throw new IllegalStateException(e.getCause());
+			}
+			if(file.failure!=null) {
+				completion.completed(file.index, file.failure);
+				return;
+			}
+			int testSuiteMembers = centralClass.getMembers().size();
+			int imports = baseImports.size();
+			replaying.set(file);
+			try {
+				List<Contribution.Entry> entries = file.contribution.getEntries();
+				for(int i=0;i<entries.size();i++) {
+					file.entry = i;
+					switch(entries.get(i).getOperation()) {
+						case IMPORT:
+						case FIELD:
+						case METHOD:
+							replayEntry(entries.get(i), null);
+							break;
+						case TEST_METHOD:
+							centralClass.addMember(file.testMethods.get(i));
+							break;
+						default:
+							break;
+					}
+				}
+			}catch(RuntimeException | StackOverflowError e) {
+				removeTestSuiteMembers(testSuiteMembers);
+				baseImports.truncate(imports);
+				replayImports.removeIf(found -> file.isOrderOf(found.order));
+				file.failure = e;
+			}finally {
+				replaying.remove();
+			}
+			//The PageObjects created by the file have the imports of the files before it and of the file itself
+			for(String created : file.createdPageObjects)
+				pageObjectImports.put(created, baseImports.size());
+			if(file.failure!=null) {
+				completion.completed(file.index, file.failure);
+				return;
+			}
+			for(int i=0;i<file.counters.length;i++)
+				counters.addAndGet(i, file.counters[i]);
+			//The warnings are given in the order of the operations that found them
+			Collections.sort(file.warnings, new Comparator<ReplayWarning>() {
+				public int compare(ReplayWarning a, ReplayWarning b) {
+					return Integer.compare(a.entry, b.entry);
+				}
+			});
+			for(ReplayWarning warning : file.warnings)
+				warnings.warn(warning.code, warning.message);
+			completion.completed(file.index, null);
+		}
+		
+		/** Stop the threads, the files not yet replayed are abandoned */
+		@Override
+		public void close() {
+			pool.shutdownNow();
+		}
+	}
+	
+	/** Do the operations of a file that don't change the test suite class, on a thread of the concurrent replay
+	 * The PageObjects used by the file are released only at the end of the file, so if an operation fails
+	 * the changes of the file are undone before the next files use the PageObjects. The failure is kept in the file
+	 * 
+	 * @param file
+	 * @throws InterruptedException
+	 */
+	private void replayFile(ReplayFile file) throws InterruptedException {
+		replaying.set(file);
+		try {
+			MethodDeclaration methodTestSuite = null;
+			List<Contribution.Entry> entries = file.contribution.getEntries();
+			for(int i=0;i<entries.size();i++) {
+				Contribution.Entry entry = entries.get(i);
+				file.entry = i;
+				switch(entry.getOperation()) {
+					case IMPORT:
+					case FIELD:
+					case METHOD:
+						//Done in file order by the concurrent replay
+						break;
+					default:
+						String pageObject = pageObjectOf(entry);
+						if(pageObject!=null)
+							file.acquire(pageObject);
+						methodTestSuite = replayEntry(entry, methodTestSuite);
+				}
+			}
+		}catch(RuntimeException | StackOverflowError e) {
+			rollbackReplayFile(file);
+			file.failure = e;
+		}finally {
+			//The next files can't wait forever, also after an error
+			for(CountDownLatch released : file.released.values())
+				released.countDown();
+			replaying.remove();
+		}
+	}
+	
+	/** Undo the changes of a file of the concurrent replay to the PageObjects: the PageObjects created, the methods added
+	 * to the other PageObjects and the imports of the test suite found. The file still holds all its PageObjects.
+	 * The test suite members, the warnings and the counters of the file are not given to the decomposer yet, so they are only dropped
+	 * 
+	 * @param file
+	 */
+	private void rollbackReplayFile(ReplayFile file) {
+		for(String created : file.createdPageObjects) {
+			registry.removePageObject(created);
+			pageObjectOrder.remove(created);
+		}
+		file.createdPageObjects.clear();
+		for(Map.Entry<PageObjectModel,Integer> used : file.methodCounts.entrySet())
+			used.getKey().truncate(used.getValue());
+		replayImports.removeIf(found -> file.isOrderOf(found.order));
+	}
+	
+	/** Remove the members added to the test suite class after the first count, with their index
+	 * 
+	 * @param count
+	 */
+	private void removeTestSuiteMembers(int count) {
+		List<BodyDeclaration<?>> members = centralClass.getMembers();
+		MemberIndex index = memberIndexes.get(centralClass);
+		while(members.size()>count) {
+			BodyDeclaration<?> member = members.remove(members.size()-1);
+			if(index!=null && member.isMethodDeclaration())
+				index.removeMethod(member.asMethodDeclaration());
+			else if(index!=null && member.isFieldDeclaration())
+				index.removeField(member.asFieldDeclaration());
+		}
+	}
+	
+	/** A file of the concurrent replay, with what is needed to add it to the test suite in file order or to undo it */
+	private static class ReplayFile {
+		private final int index;
+		private final Contribution contribution;
+		//For each PageObject used, the release of the previous file that uses it, null if it is the first file
+		private final Map<String,CountDownLatch> previous = new HashMap<>();
+		private final Map<String,CountDownLatch> released = new HashMap<>();
+		//Test methods created by the file, by operation index
+		private final Map<Integer,MethodDeclaration> testMethods = new HashMap<>();
+		private final List<ReplayWarning> warnings = new ArrayList<>();
+		//Counters of the file, added to the decomposer when the file is complete
+		private final int[] counters = new int[Counter.values().length];
+		//PageObjects created by the file, and methods of the other PageObjects used before the file
+		private final List<String> createdPageObjects = new ArrayList<>();
+		private final Map<PageObjectModel,Integer> methodCounts = new IdentityHashMap<>();
+		//Operation done now
+		private int entry;
+		private Future<Void> result;
+		//Error of an operation, all the changes of the file are undone
+		private Throwable failure;
+		
+		ReplayFile(int index, Contribution contribution) {
+			this.index = index;
+			this.contribution = contribution;
+		}
+		
+		/** Wait until the previous files have done their operations on the PageObject
+		 * 
+		 * @param pageObject
+		 * @throws InterruptedException
+		 */
+		void acquire(String pageObject) throws InterruptedException {
+			CountDownLatch previousFile = previous.remove(pageObject);
+			if(previousFile!=null)
+				previousFile.await();
+		}
+		
+		/**
+		 * @return position of the operation done now in a sequential replay
+		 */
+		long order() {
+			return ((long) index<<32) | entry;
+		}
+		
+		/** Check if the position of an operation, given by {@link #order()}, is in this file
+		 * 
+		 * @param order
+		 * @return
+		 */
+		boolean isOrderOf(long order) {
+			return (order>>>32)==index;
+		}
+	}
+	
+	/** A warning kept until its file is complete: a file of the concurrent replay, or a file that can still be undone */
+	private static class ReplayWarning {
+		private final int entry;
+		private final WarningSink.Code code;
+		private final String message;
+		
+		ReplayWarning(int entry, WarningSink.Code code, String message) {
+			this.entry = entry;
+			this.code = code;
+			this.message = message;
+		}
+	}
+	
+	/** An import of the main compilation unit found by the concurrent replay */
+	private static class ReplayImport {
+		private final long order;
+		private final ImportDeclaration importDecl;
+		
+		ReplayImport(long order, ImportDeclaration importDecl) {
+			this.order = order;
+			this.importDecl = importDecl;
+		}
+	}
+	
+	/** Add the imports of the main compilation unit found by the concurrent replay, in the order of a sequential replay */
+	private void sortImports() {
+		synchronized(replayImports) {
+			List<ReplayImport> sorted = new ArrayList<>(replayImports);
+			Collections.sort(sorted, new Comparator<ReplayImport>() {
+				public int compare(ReplayImport a, ReplayImport b) {
+					return Long.compare(a.order, b.order);
+				}
+			});
+			for(ReplayImport found : sorted)
+				centralImports.add(found.importDecl);
+			replayImports.clear();
+		}
+	}
+	
+	/** Put the PageObjects in the order of a sequential replay, the order of the first file and operation that uses them */
+	private void sortPageObjects() {
+		final Map<String,Long> order = new HashMap<>(pageObjectOrder);
+		pageObjectOrder.clear();
+		registry.sortPageObjects(new Comparator<String>() {
+			public int compare(String a, String b) {
+				//The PageObjects created before the concurrent replay stay first
+				return Long.compare(order.getOrDefault(a, -1L), order.getOrDefault(b, -1L));
+			}
+		});
+	}
+	
+	private static class ReplayThreadFactory implements ThreadFactory {
+		private final AtomicInteger count = new AtomicInteger();
+
+		public Thread newThread(Runnable task) {
+			Thread thread = new Thread(task, "assessor-replay-"+count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+	
+	/* File transactions */
+	
+	/** Remember the state before a file, nothing is copied: the test suite, the imports and the PageObjects only grow
+	 * while a file is analyzed, so the sizes are enough to undo the file
+	 */
+	private void beginFile() {
+		transaction = new FileTransaction();
+	}
+	
+	/** Give the warnings of the file to the sink, the file can't be undone anymore */
+	private void commitFile() {
+		FileTransaction file = transaction;
+		transaction = null;
+		for(ReplayWarning warning : file.warnings)
+			warnings.warn(warning.code, warning.message);
+	}
+	
+	/** Undo all the changes of the file: the members of the test suite, the imports, the PageObjects created,
+	 * the methods added to the other PageObjects and the counters. The warnings of the file are dropped
+	 */
+	private void rollbackFile() {
+		FileTransaction file = transaction;
+		transaction = null;
+		removeTestSuiteMembers(file.testSuiteMembers);
+		baseImports.truncate(file.baseImports);
+		centralImports.subList(file.centralImports, centralImports.size()).clear();
+		for(String created : registry.removePageObjectsAfter(file.pageObjects)) {
+			pageObjectImports.remove(created);
+			if(spool!=null)
+				spool.pageObjectRemoved(created);
+		}
+		for(Map.Entry<PageObjectModel,Integer> used : file.methodCounts.entrySet())
+			used.getKey().truncate(used.getValue());
+		for(int i=0;i<file.counters.length;i++)
+			counters.set(i, file.counters[i]);
+	}
+	
+	/** Stop the file if its time budget is over
+	 * 
+	 * @throws FileBudgetExceededException
+	 */
+	private void checkFileBudget() {
+		FileTransaction file = transaction;
+		if(file!=null && fileBudgetNanos>0 && System.nanoTime()-file.start>fileBudgetNanos)
+			throw new FileBudgetExceededException(TimeUnit.NANOSECONDS.toMillis(fileBudgetNanos));
+	}
+	
+	/** State of the decomposer before the file */
+	private class FileTransaction {
+		private final long start = System.nanoTime();
+		private final int testSuiteMembers = centralClass.getMembers().size();
+		private final int baseImports = TreeDecomposer.this.baseImports.size();
+		private final int centralImports = TreeDecomposer.this.centralImports.size();
+		private final int pageObjects = registry.pageObjectCount();
+		private final int[] counters = new int[Counter.values().length];
+		//Methods of each PageObject used by the file, before the file
+		private final Map<PageObjectModel,Integer> methodCounts = new IdentityHashMap<>();
+		//Warnings of the file, given to the sink only if the file doesn't fail
+		private final List<ReplayWarning> warnings = new ArrayList<>();
+		
+		FileTransaction() {
+			for(int i=0;i<counters.length;i++)
+				counters[i] = TreeDecomposer.this.counters.get(i);
+		}
+	}
+	
+	/** Thrown when a file needs more time than its budget */
+	public static class FileBudgetExceededException extends RuntimeException {
+		private static final long serialVersionUID = 1L;
+		
+		FileBudgetExceededException(long millis) {
+			super("The file needs more than its time budget of "+millis+" ms");
+		}
+	}
+	
+	/* Streaming mode */
+	
+	/** In streaming mode, at the end of a file write the test suite members in the spool and save the PageObjects not used recently
+	 * The members of a file are never needed by the next files, except for the check of the duplicated fields and setUp/tearDown methods
+	 * that uses the index of the test suite class
+	 */
+	private void releaseMemory() {
+		if(spool==null)
+			return;
+		try {
+			flushTestSuite();
+			String pageObject;
+			while((pageObject = spool.pageObjectToEvict())!=null)
+				evictPageObject(pageObject);
+		}catch(IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+	
+	/** Move all the members of the test suite class to the spool, printed as they are printed inside the class
+	 * 
+	 * @throws IOException
+	 */
+	private void flushTestSuite() throws IOException {
+		if(centralClass.getMembers().isEmpty())
+			return;
+		//The index is created before the members are removed, so it still contains the fields and the methods written
+		getMemberIndex(centralClass);
+		//The members are printed inside an empty class, so they have the same indentation and separators of the test suite class
+		List<BodyDeclaration<?>> flushed = new ArrayList<>(centralClass.getMembers());
+		centralClass.getMembers().clear();
+		ClassOrInterfaceDeclaration members = new ClassOrInterfaceDeclaration();
+		for(BodyDeclaration<?> member : flushed)
+			members.addMember(member);
+		String printed = members.toString();
+		spool.appendTestSuite(printed.substring(printed.indexOf('\n', printed.indexOf('{'))+1, printed.lastIndexOf('}')));
+	}
+	
+	/** Save the PageObject in the spool and remove it from memory
+	 * 
+	 * @param name
+	 * @throws IOException
+	 */
+	private void evictPageObject(String name) throws IOException {
+		spool.storePageObject(name, print(registry.getPageObject(name).toCompilationUnit(basePackage+".PO")));
+		removePageObject(name);
+	}
+	
+	/** Remove the PageObject from memory, without saving it
+	 * 
+	 * @param name
+	 */
+	private void removePageObject(String name) {
+		registry.evictPageObject(name);
+		spool.pageObjectRemoved(name);
+	}
+	
+	/** Load the PageObject saved in the spool and register it again
+	 * 
+	 * @param name
+	 * @return the PageObject or null if it was never created
+	 */
+	private PageObjectModel reloadPageObject(String name) {
+		if(!spool.containsPageObject(name))
+			return null;
+		CompilationUnit unit;
+		try {
+			unit = PARSERS.parse(spool.loadPageObject(name));
+		}catch(IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		PageObjectModel pageObject = PageObjectModel.fromClass(unit.getClassByName(name).get());
+		registry.reloadPageObject(pageObject);
+		return pageObject;
+	}
+	
+	/** Record the operation, only if the operations of the file are recorded
+	 * The nodes are recorded as their source code, and also copied if the contribution keeps the nodes:
+	 * the decomposer changes the nodes after the operation, so the copy is done now
+	 * 
+	 * @param operation
+	 * @param arguments arguments of the operation, each one a String or a Node
+	 */
+	private void record(Operation operation, Object... arguments) {
+		if(recording==null)
+			return;
+		String[] values = new String[arguments.length];
+		Node[] nodes = recordNodes ? new Node[arguments.length] : null;
+		for(int i=0;i<arguments.length;i++) {
+			values[i] = arguments[i].toString();
+			if(nodes!=null && arguments[i] instanceof Node)
+				nodes[i] = PositionCloneVisitor.copyOf((Node) arguments[i]);
+		}
+		recording.add(operation, values, nodes);
+	}
+	
+	/** Create the comment of the type, the type is the one recorded for an orphan comment
+	 * 
+	 * @param type
+	 * @param content
+	 * @return
+	 */
+	private static Comment createComment(String type, String content) {
+		switch(type) {
+			case "line":
+				return new LineComment(content);
+			case "javadoc":
+				return new JavadocComment(content);
+			default:
+				return new BlockComment(content);
+		}
+	}
+	
+	/** Return the position of the node in the analyzed file, as it is recorded
+	 * The printer places the orphan comments of a block by the position of the nodes, so the position is recorded
+	 * for the statements and the comments of the test methods
+	 * 
+	 * @param node
+	 * @return line:column or an empty string if the node was created by the decomposer
+	 */
+	private static String position(Node node) {
+		if(!node.getBegin().isPresent())
+			return "";
+		Position begin = node.getBegin().get();
+		return begin.line+":"+begin.column;
+	}
+	
+	/** Give again to a replayed node the position recorded by {@link #position(Node)}
+	 * 
+	 * @param node
+	 * @param position
+	 * @return the node
+	 */
+	private static <N extends Node> N setPosition(N node, String position) {
+		if(position.isEmpty()) {
+			node.setRange(null);
+		}else {
+			int separator = position.indexOf(':');
+			Position begin = new Position(Integer.parseInt(position.substring(0, separator)), Integer.parseInt(position.substring(separator+1)));
+			node.setRange(new Range(begin, begin));
+		}
+		return node;
+	}
+	
+	private static String commentType(Comment comment) {
+		if(comment.isLineComment())
+			return "line";
+		return comment.isJavadocComment() ? "javadoc" : "block";
+	}
+	
+	/** Visit the declarations of a unit in order, each declaration is visited only once
+	 * The visit doesn't enter in the method bodies, so the classes declared inside a method are not analyzed
+	 */
+	private class DeclarationVisitor extends VoidVisitorAdapter<Void> {
+		
+		@Override
+		public void visit(CompilationUnit unit, Void arg) {
+			for(ImportDeclaration importDecl : unit.getImports())
+				importDecl.accept(this, arg);
+			//Search for all the Class declaration in the files
+			for(TypeDeclaration<?> type : unit.getTypes())
+				if(type.isClassOrInterfaceDeclaration())
+					type.accept(this, arg);
+		}
+		
+		@Override
+		public void visit(ImportDeclaration importDecl, Void arg) {
+			addBaseImport(importDecl);
+		}
+		
+		@Override
+		public void visit(ClassOrInterfaceDeclaration classToAnalyze, Void arg) {
+			analyzeClass(classToAnalyze, this);
+		}
+		
+		@Override
+		public void visit(FieldDeclaration field, Void arg) {
+			addTestField(field);
+		}
+		
+		@Override
+		public void visit(MethodDeclaration method, Void arg) {
+			analyzeMethod(method);
+		}
+	}
 
-	/** Analyze the class searching for Field Declaration, Method Declaration
-	 * Because the class will return itself, the class analysis is skipped, the main operation is to analyze only Field Declaration and MethodDeclaration
+	/** Analyze the class searching for Field Declaration, Method Declaration and the nested Class declaration
+	 * The main operation is to analyze only Field Declaration and MethodDeclaration
 	 * Other operation can cause the IllegalArgumentException with the class type that has generated
 	 * @param classToAnalyze
+	 * @param visitor
 	 */
-	private void analyzeClass(ClassOrInterfaceDeclaration classToAnalyze) {
-		for(BodyDeclaration<?> declaration : classToAnalyze.findAll(BodyDeclaration.class)) {
-			if(declaration.isFieldDeclaration()) {				
-				addFieldDeclaration(declaration.asFieldDeclaration(),centralClass);
-			}else if(declaration.isMethodDeclaration()) {
-				analyzeMethod(declaration.asMethodDeclaration());				
-			}else if(declaration.isClassOrInterfaceDeclaration()){
-				//With this i can skip the Class or Interface declaration check
+	private void analyzeClass(ClassOrInterfaceDeclaration classToAnalyze, DeclarationVisitor visitor) {
+		for(BodyDeclaration<?> declaration : classToAnalyze.getMembers()) {
+			if(declaration.isFieldDeclaration() || declaration.isMethodDeclaration() || declaration.isClassOrInterfaceDeclaration()) {
+				declaration.accept(visitor, null);
 			}else {			
 				throw new IllegalArgumentException("Cannot analyze this class: "+ classToAnalyze.getClass());				
 			}			
 		}		
 	}
 	
+	/** Add the import to the base imports, if it is new it is also added to the Main Compilation unit
+	 * 
+	 * @param importDecl
+	 */
+	private void addBaseImport(ImportDeclaration importDecl) {
+		record(Operation.IMPORT, importDecl);
+		if(baseImports.add(importDecl)) 
+			addImport(centralUnit,importDecl);
+	}
+	
+	/** Add a field of a test class to the central class
+	 * 
+	 * @param field
+	 */
+	private void addTestField(FieldDeclaration field) {
+		record(Operation.FIELD, field);
+		addFieldDeclaration(field,centralClass);
+	}
+	
 	/** add the field declaration to the class, only if the field isn't already declared
 	 * if the field is already declared the method won't do anything
 	 * else the method will add a new member to the class
@@ -159,12 +1226,26 @@ public class TreeDecomposer {
 	 */
 	private void addFieldDeclaration(FieldDeclaration declaration, ClassOrInterfaceDeclaration classDeclaration) {
 		declaration.setPrivate(true);
-		for(FieldDeclaration field : classDeclaration.findAll(FieldDeclaration.class))
-			if(field.hashCode()==declaration.hashCode()) //Field already in
-				return;
-		
+		MemberIndex index = getMemberIndex(classDeclaration);
+		if(index.containsField(declaration)) //Field already in
+			return;
+		index.addField(declaration);
 		classDeclaration.addMember(declaration);		
 	}
+	
+	/** Return the index of the members of the class, the index is created the first time
+	 * 
+	 * @param classDeclaration
+	 * @return
+	 */
+	private MemberIndex getMemberIndex(ClassOrInterfaceDeclaration classDeclaration) {
+		MemberIndex index = memberIndexes.get(classDeclaration);
+		if(index==null) {
+			index = new MemberIndex(classDeclaration);
+			memberIndexes.put(classDeclaration, index);
+		}
+		return index;
+	}
 
 	/** Analyzing the method we can have two situation, the initializer method (tearDown/setUp) or a different name for the method
 	 * If it is the default initializer, this will always go to the centralClass declaration
@@ -174,23 +1255,82 @@ public class TreeDecomposer {
 	private void analyzeMethod(MethodDeclaration method) {
 		if("setUp".equals(method.getNameAsString()) || "tearDown".equals(method.getNameAsString())) {
 			//Add the method to the central class without parameter/arguments
+			record(Operation.METHOD, method);
 			addMethod(method,centralClass,null,null);			
 		}else {	
 			//Read the body of the statement
-			Optional<BlockStmt> bodyStmt = method.findFirst(BlockStmt.class);			
+			Optional<BlockStmt> bodyStmt = method.getBody();			
 			if(!bodyStmt.isPresent())
 				return;
+			AssessorEvents.AnalyzeMethod event = new AssessorEvents.AnalyzeMethod();
+			if(event.isEnabled()) {
+				//The statements are moved by the analysis, so they are counted before
+				event.testClass = method.findAncestor(ClassOrInterfaceDeclaration.class).map(ClassOrInterfaceDeclaration::getNameAsString).orElse("");
+				event.method = method.getNameAsString();
+				event.statements = bodyStmt.get().getStatements().size();
+			}
+			event.begin();
 			//If the body is present then get all the annotation and create a new Method with the same name and the Public modifier
-			List<AnnotationExpr> annotations = method.getAnnotations();
-			MethodDeclaration newMethod = centralClass.addMethod(method.getNameAsString(), Modifier.Keyword.PUBLIC);
-			for(AnnotationExpr annotation : annotations)
-				newMethod.addAnnotation(annotation);
+			MethodDeclaration newMethod = addTestMethod(method.getNameAsString(), method.getAnnotations());
 			//Then analyze all the instruction present in the body
 			analyzeInstructionCalls(newMethod,bodyStmt);
+			event.commit();
 		}		
 	}
 	
 	
+	/** Create a new test method in the central class, with the annotations of the original method
+	 * 
+	 * @param methodName
+	 * @param annotations
+	 * @return
+	 */
+	private MethodDeclaration addTestMethod(String methodName, List<AnnotationExpr> annotations) {
+		if(recording!=null) {
+			List<Object> arguments = new ArrayList<>();
+			arguments.add(methodName);
+			arguments.addAll(annotations);
+			record(Operation.TEST_METHOD, arguments.toArray());
+		}
+		MethodDeclaration newMethod;
+		ReplayFile file = replaying.get();
+		if(file==null) {
+			newMethod = centralClass.addMethod(methodName, Modifier.Keyword.PUBLIC);
+		}else {
+			//The concurrent replay adds the method to the test suite class later, in file order
+			newMethod = new MethodDeclaration().setName(methodName).setType(new VoidType()).setModifiers(Modifier.Keyword.PUBLIC);
+			file.testMethods.put(file.entry, newMethod);
+		}
+		for(AnnotationExpr annotation : annotations)
+			newMethod.addAnnotation(annotation);
+		return newMethod;
+	}
+	
+	/** Add the statement to the body of a PageObject method or of the test method
+	 * Only the statements of the test method are recorded, the PageObject method is recorded when it is added to the PageObject
+	 * 
+	 * @param bodyMethod
+	 * @param statement
+	 * @param methodTestSuite
+	 */
+	private void addStatement(BlockStmt bodyMethod, Statement statement, MethodDeclaration methodTestSuite) {
+		if(bodyMethod==methodTestSuite.getBody().get())
+			record(Operation.STATEMENT, statement, position(statement));
+		bodyMethod.addStatement(statement);
+	}
+	
+	/** Add the comment to the body of a PageObject method or of the test method, like {@link #addStatement(BlockStmt, Statement, MethodDeclaration)}
+	 * 
+	 * @param bodyMethod
+	 * @param comment
+	 * @param methodTestSuite
+	 */
+	private void addComment(BlockStmt bodyMethod, Comment comment, MethodDeclaration methodTestSuite) {
+		if(bodyMethod==methodTestSuite.getBody().get())
+			record(Operation.COMMENT, commentType(comment), comment.getContent(), position(comment));
+		bodyMethod.addOrphanComment(comment);
+	}
+	
 	/** Analyze each instruction, to divide between TestMethod calls and PageObject calls
 	 *  
 	 * @param methodTestSuite
@@ -198,7 +1338,7 @@ public class TreeDecomposer {
 	 */
 	private void analyzeInstructionCalls(MethodDeclaration methodTestSuite, Optional<BlockStmt> blockStmt) {
 		//This will hold the last page object found
-		ClassOrInterfaceDeclaration lastPageObject = null;
+		PageObjectModel lastPageObject = null;
 		//This will hold the Method where the statement is added, could be a TestSuite method or a PageObject Method
 		MethodDeclaration methodToAddStatement = methodTestSuite;
 		//In the Key we can found the pageObject name, and in the value the name of the variable
@@ -208,18 +1348,17 @@ public class TreeDecomposer {
 		//List for each argument in the Method Declaration
 		List<NameExpr> arguments = new LinkedList<NameExpr>();
 		boolean waitForElementFound = false;
-		for(Node node : blockStmt.get().getChildNodes()) {
-			
-			Map<String,String> delimiterFound = checkDelimiterInstruction(node);
-			boolean delimiterEnd = false;
-			
-			if(delimiterFound==null) 
-				delimiterEnd = _checkDelimiterEnd(node);
+		//The statements moved are removed from the children of the block, so a copy of the list is needed
+		for(Node node : new ArrayList<>(blockStmt.get().getChildNodes())) {
+			checkFileBudget();
+			//Each statement is classified only once, all the checks below read this result
+			Classification statement = StatementClassifier.classify(node);
+			boolean delimiterEnd = statement.getKind()==Kind.BACK_TO_MAIN;
 			//If there is a delimiter
-			if(delimiterFound!=null || delimiterEnd ) {
+			if(statement.isDelimiter()) {
 				//if a pageObject is found, the create the pageObject calls
 				if(lastPageObject!=null)
-					addPageObjectCall(methodTestSuite, lastPageObject, methodToAddStatement, localFieldDeclaration.get(lastPageObject.getNameAsString()),values,arguments);					
+					addPageObjectCall(methodTestSuite, lastPageObject, methodToAddStatement, localFieldDeclaration.get(lastPageObject.getName()),values,arguments);					
 
 				//if the instruction is to go back to the write to the main Test Method
 				//clear the lastPageObject and change the method where to add statement
@@ -230,66 +1369,62 @@ public class TreeDecomposer {
 				}
 				waitForElementFound = false;
 				//If a delimiter is found, get the pageObject Name
-				String pageObjectName = delimiterFound.get(KEY_HASH_PO_NAME);
-				//recover the pageObject from the class
-				lastPageObject = getPageObject(pageObjectName);
-				//if the pageObject is not found, then should be created
-				if(lastPageObject==null) 
-					lastPageObject = createPageObject(pageObjectName);
+				String pageObjectName = getPOName(statement.getPageObjectName());
+				//recover the pageObject from the class, or create it
+				lastPageObject = usePageObject(pageObjectName);
 				//if the local variable inside the TestMethod isn't declared, then the declaration must be added
 				if(!localFieldDeclaration.containsKey(pageObjectName)) {
 					//The value represent the Variable name, using an _ to be better identified inside the code 
 					localFieldDeclaration.put(pageObjectName, "_"+pageObjectName);
 					//The initialization of the PageObject is always formed by the 3 variables driver,var,js 
-					methodTestSuite.getBody().get()
-						.addStatement(pageObjectName+ " "+localFieldDeclaration.get(pageObjectName) +" = new "+pageObjectName+"(driver,js,vars);");
+					addStatement(methodTestSuite.getBody().get(),
+						createPageObjectInstance(pageObjectName, localFieldDeclaration.get(pageObjectName)), methodTestSuite);
 				}
 				//Now a new void method is created with the PageMethodName.
 				//if the method will need a different return statement, this will be change in a second time
 				methodToAddStatement = new MethodDeclaration() 
-					.setType("void")
-					.setName(delimiterFound.get(KEY_HASH_PO_METHOD))
+					.setType(new VoidType())
+					.setName(statement.getPageMethodName())
 					.setPublic(true);
 				continue; //Don't add the System.out.println
 				
 			}
-			//Because each node is linked with others node, if the node isn't cloned the program will crash because the structure that holds the node is not modifiable
-			Node clonedNode = node.clone();
+			//Each statement is visited only once, so in move mode it doesn't need to be copied
+			Node clonedNode = moveNodes ? node : node.clone();
 			
 			BlockStmt bodyMethod = methodToAddStatement.getBody().get();
 			if(clonedNode instanceof ExpressionStmt) { //2 option, is Assert or normal command
 				
-				if( lastPageObject!=null && !waitForElementFound && clonedNode.toString().contains("click") ) {
+				if( lastPageObject!=null && !waitForElementFound && statement.containsClick() ) {
 					//create Wait for element to prevent missing loading on async loading
 					createWaitForElement((ExpressionStmt) clonedNode,bodyMethod);
 					waitForElementFound = true;
 				}
 				
-				if(clonedNode.toString().contains("sendKeys")) {
-					String clearCommand = createClearCommandBeforeSendKeys((ExpressionStmt)clonedNode);
-					bodyMethod.addStatement(clearCommand);		
+				if(statement.containsSendKeys()) {
+					addStatement(bodyMethod, createClearCommandBeforeSendKeys((ExpressionStmt)clonedNode), methodTestSuite);
 				}
 				
 				ExpressionStmt expStmt = (ExpressionStmt)clonedNode;
 				//if the pageObject isn't already found, then there is no need to check for arguments
 				if(lastPageObject!=null)  				
-					analyzeMethodArguments(expStmt,values,arguments);			
+					analyzeMethodArguments(expStmt,statement,values,arguments);			
 				//If the statement doesn't start with assert means that it is a normal call, also the pageObject needed to be inizialited
-				if(expStmt.toString().startsWith("assert") && lastPageObject!=null) {
+				if(statement.isAssert() && lastPageObject!=null) {
 				
 					//Add the previews call method, that will return void
-					addPageObjectCall(methodTestSuite, lastPageObject, methodToAddStatement, localFieldDeclaration.get(lastPageObject.getNameAsString()),values,arguments);	
+					addPageObjectCall(methodTestSuite, lastPageObject, methodToAddStatement, localFieldDeclaration.get(lastPageObject.getName()),values,arguments);	
 					
 					//if the method contains a search for an element, then create the statement
-					if(expStmt.toString().contains("driver.findElement")) { 						
+					if(statement.containsFindElement()) { 						
 						analyzeAssertCallExpStmt(
 								methodTestSuite, 
 								lastPageObject,
-								localFieldDeclaration.get(lastPageObject.getNameAsString()), 		
+								localFieldDeclaration.get(lastPageObject.getName()), 		
 								expStmt);
 					}else { //nothing special with this assert
 						bodyMethod = methodTestSuite.getBody().get();
-						bodyMethod.addStatement(expStmt);	
+						addStatement(bodyMethod, expStmt, methodTestSuite);	
 					}	
 					//Return to write in the main statement as default
 					lastPageObject = null;
@@ -297,68 +1432,83 @@ public class TreeDecomposer {
 				}
 				else { 
 					//if it's not a special statement (assert), just add it to the bodyMethod of the TestMethod or PageObject Method
-					bodyMethod.addStatement(expStmt);	
+					addStatement(bodyMethod, expStmt, methodTestSuite);	
 				}
 			}else if (clonedNode instanceof BlockStmt) { //2 option, can contain Assert or normal block
 				BlockStmt blockInstruction = (BlockStmt) clonedNode;				
 				if(lastPageObject==null) { //No pageObject, so i don't care what contains or there isn't an assert call
-					bodyMethod.addStatement(blockInstruction);
+					addStatement(bodyMethod, blockInstruction, methodTestSuite);
 				} else if(searchForAssertInBlockStmt(blockInstruction)) {
 					//Add the previews call method, that will return void
-					addPageObjectCall(methodTestSuite, lastPageObject, methodToAddStatement, localFieldDeclaration.get(lastPageObject.getNameAsString()),values,arguments);	
+					addPageObjectCall(methodTestSuite, lastPageObject, methodToAddStatement, localFieldDeclaration.get(lastPageObject.getName()),values,arguments);	
 					List<Node> childInstruction = blockInstruction.getChildNodes();
 					
 					//if the method contains a search for an element, then create the statement, it should never be empty because contains at least 1 assert call
-					if(childInstruction.get(0).toString().contains("driver.findElement")) { 
-							generateAssertCallBlockStmt(methodTestSuite,lastPageObject, localFieldDeclaration.get(lastPageObject.getNameAsString()), 
+					if(StatementClassifier.classify(childInstruction.get(0)).containsFindElement()) { 
+							generateAssertCallBlockStmt(methodTestSuite,lastPageObject, localFieldDeclaration.get(lastPageObject.getName()), 
 									 blockInstruction,values,arguments);					
 					}else { //nothing special with this assert
 						bodyMethod = methodTestSuite.getBody().get();
-						bodyMethod.addStatement(blockInstruction);	
+						addStatement(bodyMethod, blockInstruction, methodTestSuite);	
 					}	
 					lastPageObject = null;
 					methodToAddStatement = methodTestSuite;
 				}else {					
+					//The block is filled before it is added, so it is complete when it is recorded
 					BlockStmt blockParsed = new BlockStmt();
-					bodyMethod.addStatement(blockParsed);
-					for(Node child : blockInstruction.getChildNodes()) {
-						ExpressionStmt expStmt = (ExpressionStmt)child.clone();
-						analyzeMethodArguments(expStmt,values,arguments);	
+					for(Node child : new ArrayList<>(blockInstruction.getChildNodes())) {
+						ExpressionStmt expStmt = (ExpressionStmt)child;
+						analyzeMethodArguments(expStmt,StatementClassifier.classify(child),values,arguments);	
 						blockParsed.addStatement(expStmt);
 					}					
+					addStatement(bodyMethod, blockParsed, methodTestSuite);
 				}
 			}else if (clonedNode instanceof Comment) {
-				bodyMethod.addOrphanComment((Comment) clonedNode);
+				addComment(bodyMethod, (Comment) clonedNode, methodTestSuite);
 			}else { 
-				bodyMethod.addStatement((Statement) clonedNode);
+				addStatement(bodyMethod, (Statement) clonedNode, methodTestSuite);
 			}
 		}
 		//after all the instruction end, if there is a PageObject declared then add his MethodCallDeclaration to the TestSuite Method
 		if(lastPageObject!=null)				
-			addPageObjectCall(methodTestSuite, lastPageObject, methodToAddStatement, localFieldDeclaration.get(lastPageObject.getNameAsString()),values,arguments);					
+			addPageObjectCall(methodTestSuite, lastPageObject, methodToAddStatement, localFieldDeclaration.get(lastPageObject.getName()),values,arguments);					
 				
 	}
 
+	/** Add the wait for the element used by the click instruction: 
+	 * By elem = locator; MyUtils.WaitForElementLoaded(driver,elem);
+	 * 
+	 * @param instruction
+	 * @param bodyMethod
+	 */
 	private void createWaitForElement(ExpressionStmt instruction, BlockStmt bodyMethod) {
-		Node cloned = instruction.clone().getChildNodes().get(0);
-		MethodCallExpr methodCall = (MethodCallExpr) cloned.getChildNodes().get(0);
-		Expression argument = methodCall.getArgument(0);
-		bodyMethod.addStatement("By elem = " + argument.toString() + ";");
-		bodyMethod.addStatement("MyUtils.WaitForElementLoaded(driver,elem);");
+		MethodCallExpr clickCall = (MethodCallExpr) instruction.getExpression();
+		MethodCallExpr methodCall = (MethodCallExpr) clickCall.getScope().get();
+		Expression argument = methodCall.getArgument(0).clone();
+		VariableDeclarationExpr elem = new VariableDeclarationExpr(new VariableDeclarator(classType("By"), "elem", argument));
+		bodyMethod.addStatement(asParsed(new ExpressionStmt(elem)));
+		bodyMethod.addStatement(asParsed(new ExpressionStmt(new MethodCallExpr(new NameExpr("MyUtils"), "WaitForElementLoaded", 
+				new NodeList<Expression>(new NameExpr("driver"), new NameExpr("elem"))))));
 	}
 
-	private String createClearCommandBeforeSendKeys(ExpressionStmt instruction) {
-		Node clonedClear = instruction.clone().getChildNodes().get(0);
-		String command = "";
-		for(Node child : clonedClear.getChildNodes()) {
-			if(child.toString().contains("sendKeys")) {
-				command+="clear();";
+	/** Create the clear instruction on the same element of the sendKeys instruction
+	 * The element is everything before the sendKeys call: element.sendKeys(..) -> element.clear();
+	 * 
+	 * @param instruction
+	 * @return
+	 */
+	private ExpressionStmt createClearCommandBeforeSendKeys(ExpressionStmt instruction) {
+		List<Node> element = new LinkedList<>();
+		for(Node child : instruction.getExpression().getChildNodes()) {
+			if(StatementClassifier.classify(child).containsSendKeys()) 
 				break;
-			}else {
-				command+=child.toString()+".";
-			}
+			element.add(child);
 		}
-		return command;
+		if(element.isEmpty())
+			return asParsed(new ExpressionStmt(new MethodCallExpr("clear")));
+		if(element.size()>1 || !(element.get(0) instanceof Expression))
+			throw new UnsupportedOperationException("No clear command can be created for this instruction: " +instruction);
+		return asParsed(new ExpressionStmt(new MethodCallExpr(((Expression) element.get(0)).clone(), "clear")));
 	}
 
 
@@ -369,7 +1519,7 @@ public class TreeDecomposer {
 	 */
 	private boolean searchForAssertInBlockStmt(BlockStmt blockInstruction) {	
 		for(Node child : blockInstruction.getChildNodes()) 
-			if(child.toString().startsWith("assert")) 
+			if(StatementClassifier.classify(child).isAssert()) 
 				return true;					
 		return false;
 	}
@@ -383,15 +1533,27 @@ public class TreeDecomposer {
 	 * @param values
 	 * @param argument
 	 */
-	private void addPageObjectCall(MethodDeclaration methodTestSuite, ClassOrInterfaceDeclaration pageObject,
+	private void addPageObjectCall(MethodDeclaration methodTestSuite, PageObjectModel pageObject,
 			MethodDeclaration methodPO, String pageObjectVariable,
 			List<Node> values, 
 			List<NameExpr> argument) {	
+		if(recording!=null) {
+			List<Object> recorded = new ArrayList<>();
+			recorded.add(pageObject.getName());
+			recorded.add(pageObjectVariable);
+			recorded.add(methodPO);
+			for(int i=0;i<values.size();i++) {
+				recorded.add(values.get(i));
+				recorded.add(argument.get(i).getNameAsString());
+			}
+			record(Operation.PAGE_OBJECT_CALL, recorded.toArray());
+		}
 		
 		if(methodPO.getBody().get().getChildNodes().size()==0) { //No instruction found
-			addWarning("The method declaration " +methodPO.getNameAsString() +" in the pageObject: "+pageObject.getNameAsString() + " is empty. So it will be discharged" );			
+			count(Counter.EMPTY_METHODS_DISCARDED);
+			addWarning(WarningSink.Code.EMPTY_METHOD, "The method declaration " +methodPO.getNameAsString() +" in the pageObject: "+pageObject.getName() + " is empty. So it will be discharged" );			
 		}else {
-			MethodDeclaration methodAdded = addMethod( methodPO,  pageObject,values,argument);
+			String methodAdded = addMethod( methodPO,  pageObject,values,argument);
 			addCallToMethod(pageObjectVariable,methodTestSuite,methodAdded,values);
 		}
 		values.clear();
@@ -399,67 +1561,143 @@ public class TreeDecomposer {
 	}
 
 
-	/** Search in all the Compilation unit if the pageObject is already declared
+	/** Search in the registry of all the Compilation unit if the pageObject is already declared
 	 * if it is already declared will return the pageObject class 
 	 * else null
 	 * 
 	 * @param pageObject
 	 * @return
 	 */
-	private ClassOrInterfaceDeclaration getPageObject(String pageObject) {
-		for(CompilationUnit unit : units)
-			for(ClassOrInterfaceDeclaration searchedClass : unit.findAll(ClassOrInterfaceDeclaration.class)) 		
-				if(searchedClass.getNameAsString().equals(pageObject))
-					return searchedClass;		
-		return null;
+	private PageObjectModel getPageObject(String pageObject) {
+		PageObjectModel pageObjectClass = registry.getPageObject(pageObject);
+		if(spool==null)
+			return pageObjectClass;
+		if(pageObjectClass==null)
+			pageObjectClass = reloadPageObject(pageObject);
+		if(pageObjectClass!=null)
+			spool.pageObjectUsed(pageObject);
+		return pageObjectClass;
 	}
 	
-	/** Create a new Page Object Class with the default initialization
-	 * This method will also create a new CompilationUnit that will be added to the list of all the compilation unit
+	/** Return the pageObject with this name, if it is not found then it is created
+	 * 
+	 * @param pageObject
+	 * @return
+	 */
+	private PageObjectModel usePageObject(String pageObject) {
+		record(Operation.PAGE_OBJECT, pageObject);
+		PageObjectModel pageObjectClass = getPageObject(pageObject);
+		ReplayFile file = replaying.get();
+		if(pageObjectClass==null) 
+			pageObjectClass = createPageObject(pageObject);
+		else if(file!=null)
+			file.methodCounts.putIfAbsent(pageObjectClass, pageObjectClass.getMethodCount());
+		else if(transaction!=null)
+			transaction.methodCounts.putIfAbsent(pageObjectClass, pageObjectClass.getMethodCount());
+		return pageObjectClass;
+	}
+	
+	/** Create the model of a new Page Object Class, its unit has the default initialization when it is built
+	 * The package of the PageObjects is imported by the test suite
 	 * 
 	 * @param pageObject
 	 * @return
 	 */	
-	private ClassOrInterfaceDeclaration createPageObject(String pageObject) {
-		Map<String,String> hashMap = new HashMap<>();
-		hashMap.put("WebDriver", "driver");
-		hashMap.put("Map<String,Object>", "vars");
-		hashMap.put("JavascriptExecutor", "js");		
-		CompilationUnit unit = new CompilationUnit();
-		units.add(unit);
-		addImports(unit,baseImports);		
-		ClassOrInterfaceDeclaration classCreated = createClass(unit,pageObject);
-				
-		for(Map.Entry<String,String> entry : hashMap.entrySet()) {
-			classCreated.addField(entry.getKey(), entry.getValue());			
-		}		
-		
-		ConstructorDeclaration constructor = classCreated.addConstructor().setPublic(true);
-		BlockStmt blockStmt = new BlockStmt();
-		
-		for(Map.Entry<String,String> entry : hashMap.entrySet()) {			
-			constructor.addParameter(entry.getKey(), entry.getValue());
-			blockStmt.addStatement("this."+entry.getValue()+"="+entry.getValue()+";");
-		}		
-		constructor.setBody(blockStmt);
-		return classCreated;
+	private PageObjectModel createPageObject(String pageObject) {
+		AssessorEvents.CreatePageObject event = new AssessorEvents.CreatePageObject();
+		event.begin();
+		ReplayFile file = replaying.get();
+		if(file==null) {
+			addImports(pageObject,baseImports);
+		}else {
+			//The imports are given when the file is complete, in file order
+			file.createdPageObjects.add(pageObject);
+			pageObjectOrder.put(pageObject, file.order());
+		}
+		addImport(centralUnit, new ImportDeclaration(basePackage+".PO",false,true));
+		PageObjectModel created = new PageObjectModel(pageObject);
+		registry.registerPageObject(created);
+		count(Counter.PAGE_OBJECTS_CREATED);
+		if(spool!=null)
+			spool.pageObjectUsed(pageObject);
+		if(event.shouldCommit()) {
+			event.pageObject = pageObject;
+			event.pageObjects = registry.pageObjectCount();
+			event.commit();
+		}
+		return created;
 	}
 	
 	/** Create a MethodCallDeclaration with the list of values 
 	 * 
 	 * @param variableName
 	 * @param methodWhoCalls
-	 * @param methodToCall
+	 * @param methodToCall name of the method
 	 * @param values
 	 */
-	private void addCallToMethod(String variableName, MethodDeclaration methodWhoCalls, MethodDeclaration methodToCall,List<Node> values) {
-		String statement = variableName+"."+methodToCall.getNameAsString()+"(";
-		statement+= argumentParser(values);
-		statement+=");";		
-		methodWhoCalls.getBody().get().addStatement(statement);		
+	private void addCallToMethod(String variableName, MethodDeclaration methodWhoCalls, String methodToCall,List<Node> values) {
+		methodWhoCalls.getBody().get().addStatement(createCall(variableName, methodToCall, values));		
 	}
 
 
+	/* Statement Builder */
+	
+	/** Create the call variableName.methodToCall(values) as expression
+	 * 
+	 * @param variableName
+	 * @param methodToCall name of the method
+	 * @param values
+	 * @return
+	 */
+	private MethodCallExpr createCallExpr(String variableName, String methodToCall, List<Node> values) {
+		return new MethodCallExpr(new NameExpr(variableName), methodToCall, argumentParser(values));
+	}
+	
+	/** Create the instruction variableName.methodToCall(values);
+	 * 
+	 * @param variableName
+	 * @param methodToCall name of the method
+	 * @param values
+	 * @return
+	 */
+	private ExpressionStmt createCall(String variableName, String methodToCall, List<Node> values) {
+		return asParsed(new ExpressionStmt(createCallExpr(variableName, methodToCall, values)));
+	}
+	
+	/** Create the instruction PageObject variableName = new PageObject(driver,js,vars);
+	 * 
+	 * @param pageObjectName
+	 * @param variableName
+	 * @return
+	 */
+	private ExpressionStmt createPageObjectInstance(String pageObjectName, String variableName) {
+		NodeList<Expression> arguments = new NodeList<>(new NameExpr("driver"), new NameExpr("js"), new NameExpr("vars"));
+		ObjectCreationExpr creation = new ObjectCreationExpr(null, classType(pageObjectName), arguments);
+		return asParsed(new ExpressionStmt(new VariableDeclarationExpr(new VariableDeclarator(classType(pageObjectName), variableName, creation))));
+	}
+	
+	/** Give to a statement built by the decomposer the position of a statement parsed alone: the first line and column
+	 * The printer places the orphan comments of a block by the position of the nodes, so the statements built by the
+	 * decomposer must be placed like the statements parsed from their source code
+	 * 
+	 * @param statement
+	 * @return the statement
+	 */
+	private static <S extends Statement> S asParsed(S statement) {
+		statement.setRange(PARSED_STATEMENT);
+		return statement;
+	}
+	
+	/** Create the type of a class without package
+	 * 
+	 * @param className
+	 * @return
+	 */
+	private static ClassOrInterfaceType classType(String className) {
+		return new ClassOrInterfaceType(null, className);
+	}
+	
+
 	/* Utility Method for JavaParser */
 
  	/**Add package to a Compilation unit
@@ -478,23 +1716,30 @@ public class TreeDecomposer {
 		
 	}
 	
-	/**Add multiple import to a compilation unit
+	/**Add all the base imports found until now to a PageObject compilation unit
+	 * Only the number of imports is saved, because the set can only grow, the imports are applied by {@link #buildPageObject(PageObjectModel)}
 	 * 
-	 * @param unit
+	 * @param pageObject
 	 * @param importElements
 	 */
- 	private void addImports(CompilationUnit unit, List<ImportDeclaration> importElements) {
-		for(ImportDeclaration importElement : importElements)
-			addImport(unit,importElement);	
+ 	private void addImports(String pageObject, ImportSet importElements) {
+		pageObjectImports.put(pageObject, importElements.size());
 	}
  	
-	/**Add a single import to a compilation unit
+	/**Add a single import to the Main compilation unit
+	 * The import is saved and applied when the units are emitted
 	 * 
 	 * @param unit
 	 * @param importEl
 	 */
  	private void addImport(CompilationUnit unit,ImportDeclaration importEl){
-		unit.addImport(importEl);
+		if(unit!=centralUnit)
+			throw new IllegalArgumentException("Imports can be added only to the main compilation unit");
+		ReplayFile file = replaying.get();
+		if(file!=null)
+			replayImports.add(new ReplayImport(file.order(), importEl));
+		else
+			centralImports.add(importEl);
 	}
  	
 	/** The method will create a new Class if and only if there isn't a Class with the same name in the entire list of compilation unit
@@ -506,9 +1751,9 @@ public class TreeDecomposer {
 	 * @return 
 	 */
  	private ClassOrInterfaceDeclaration createClass(CompilationUnit unit,String className) {
-		for(ClassOrInterfaceDeclaration searchedClass : unit.findAll(ClassOrInterfaceDeclaration.class)) 		
-			if(searchedClass.getNameAsString().equals(className))
-				return searchedClass;
+		ClassOrInterfaceDeclaration searchedClass = registry.get(className);
+		if(searchedClass!=null)
+			return searchedClass;
 		
 		ClassOrInterfaceDeclaration newClass = unit.addClass(className).setPublic(true);
 		boolean isNotCentralPackage = centralUnit!=unit;
@@ -534,22 +1779,61 @@ public class TreeDecomposer {
  	 */
 	private MethodDeclaration addMethod(MethodDeclaration methodToAdd, ClassOrInterfaceDeclaration addToClass,List<Node> argTypes, List<NameExpr> argName) {
 		methodAddArguments(methodToAdd,argTypes,argName);
+		MemberIndex index = getMemberIndex(addToClass);
+		if(methodToAdd.getParentNode().orElse(null)==addToClass) {
+			//The method is already in the class, but it could be changed after it was added
+			index.refreshMethod(methodToAdd);
+			return methodToAdd;
+		}
 		MethodDeclaration alreadyInMethod = getMethodAlreadyIn(methodToAdd,addToClass);
 		if(alreadyInMethod!=null)
 			return alreadyInMethod;
-		int index = 1;
 		String baseMethodName = methodToAdd.getNameAsString();
-		while(methodSameName(methodToAdd,addToClass)) {
-			methodToAdd.setName(baseMethodName+"_"+index);
-			index++;
-		}
-		if(index>1) {
-			addWarning("Method name duplicate in PO: "+addToClass.getNameAsString()+" the method " + baseMethodName+" is renamed in  "+methodToAdd.getNameAsString());
+		String methodName = index.nextFreeName(baseMethodName);
+		if(!methodName.equals(baseMethodName)) {
+			methodToAdd.setName(methodName);
+			methodRenamed(addToClass.getNameAsString(), baseMethodName, methodName);
 		}
+		index.addMethod(methodToAdd);
 		addToClass.addMember(methodToAdd);	
+		count(Counter.METHODS_ADDED);
 		return methodToAdd;
 	}
 	
+	/** Add the method to the model of the PageObject, like {@link #addMethod(MethodDeclaration, ClassOrInterfaceDeclaration, List, List)}
+	 * 
+	 * @param methodToAdd
+	 * @param addToPageObject
+	 * @param argTypes
+	 * @param argName
+	 * @return the name of the method to call: the method added or the method with the same parameters and body
+	 */
+	private String addMethod(MethodDeclaration methodToAdd, PageObjectModel addToPageObject,List<Node> argTypes, List<NameExpr> argName) {
+		methodAddArguments(methodToAdd,argTypes,argName);
+		if(addToPageObject.isOpen(methodToAdd)) {
+			//The method is already in the PageObject, but it could be changed after it was added
+			addToPageObject.refreshMethod(methodToAdd);
+			return methodToAdd.getNameAsString();
+		}
+		String alreadyInMethod = getMethodAlreadyIn(methodToAdd,addToPageObject);
+		if(alreadyInMethod!=null)
+			return alreadyInMethod;
+		String baseMethodName = methodToAdd.getNameAsString();
+		String methodName = addToPageObject.nextFreeName(baseMethodName);
+		if(!methodName.equals(baseMethodName)) {
+			methodToAdd.setName(methodName);
+			methodRenamed(addToPageObject.getName(), baseMethodName, methodName);
+		}
+		addToPageObject.addMethod(methodToAdd);
+		count(Counter.METHODS_ADDED);
+		return methodName;
+	}
+	
+	private void methodRenamed(String className, String baseMethodName, String methodName) {
+		count(Counter.METHODS_RENAMED);
+		addWarning(WarningSink.Code.METHOD_RENAMED, "Method name duplicate in PO: "+className+" the method " + baseMethodName+" is renamed in  "+methodName);
+	}
+	
 	/** If there is a list of argTypes, then the method is modified and for each argTypes a new Parameter is added
 	 * because all the parameters is of types String, this is hard-coded. But the Node with he real values can be read in the argTypes list
 	 * 
@@ -563,7 +1847,7 @@ public class TreeDecomposer {
 			//Node value = argTypes.get(i); //if i want to parse other type of Input
 			NameExpr nameVariable = argName.get(i);
 			Parameter parameter = new Parameter();
-			parameter.setType("String");		
+			parameter.setType(classType("String"));		
 			parameter.setName(nameVariable.toString());
 			method.addParameter(parameter);
 		}
@@ -578,39 +1862,29 @@ public class TreeDecomposer {
 	 * @return
 	 */
 	private MethodDeclaration getMethodAlreadyIn(MethodDeclaration methodToSearch, ClassOrInterfaceDeclaration classToSearch) {
-		List<MethodDeclaration> methods = classToSearch.findAll(MethodDeclaration.class);
-		for(MethodDeclaration method : methods) { 
-			if(method.hashCode()==methodToSearch.hashCode()) 				
-				return method;			
-					
-			if(!method.getParameters().toString().equals(methodToSearch.getParameters().toString())) 			
-				continue;
-			
-			String bodyStatement = method.getBody().get().toString();
-			
-			if(bodyStatement.equals(methodToSearch.getBody().get().toString())) {	
-				if(!method.getNameAsString().equals(methodToSearch.getNameAsString())) {
-					String unified = method.getNameAsString();
-					addWarning("For PO:" +classToSearch.getNameAsString()+" method "+methodToSearch.getNameAsString() +" and "+unified+" unified under the name "+unified+" since bodies and paramters list are identical");
-				}
-				return method;
-			}			
-		}
-		return null;
+		MethodDeclaration method = getMemberIndex(classToSearch).findSameMethod(methodToSearch);
+		if(method!=null)
+			methodsUnified(classToSearch.getNameAsString(), methodToSearch.getNameAsString(), method.getNameAsString());
+		return method;
 	}
 	
-	/** This will check if there is a method with the same name
-	 * It doens't check if the method is the same or anything else but just if there is a same method name 
-	 * @param methodToAdd
-	 * @param addToClass
-	 * @return
+	/** Search if the method is already in the model of the PageObject, like {@link #getMethodAlreadyIn(MethodDeclaration, ClassOrInterfaceDeclaration)}
+	 * 
+	 * @param methodToSearch
+	 * @param pageObject
+	 * @return the name of the method already in the PageObject, or null
 	 */
-	private boolean methodSameName(MethodDeclaration methodToAdd, ClassOrInterfaceDeclaration addToClass) {
-		List<MethodDeclaration> methods = addToClass.findAll(MethodDeclaration.class);
-		for(MethodDeclaration method : methods) 
-			if(method.getNameAsString().equals(methodToAdd.getNameAsString())) 
-				return true;		
-		return false;
+	private String getMethodAlreadyIn(MethodDeclaration methodToSearch, PageObjectModel pageObject) {
+		String method = pageObject.findSameMethod(methodToSearch);
+		if(method!=null)
+			methodsUnified(pageObject.getName(), methodToSearch.getNameAsString(), method);
+		return method;
+	}
+	
+	private void methodsUnified(String className, String methodName, String unified) {
+		count(Counter.METHODS_UNIFIED);
+		if(!unified.equals(methodName))
+			addWarning(WarningSink.Code.METHODS_UNIFIED, "For PO:" +className+" method "+methodName +" and "+unified+" unified under the name "+unified+" since bodies and paramters list are identical");
 	}
 	
 	/*Assert Call Analyzer */
@@ -622,20 +1896,22 @@ public class TreeDecomposer {
 	 * @param pageObjectVariable
 	 * @param expression
 	 */
-	private void analyzeAssertCallExpStmt(MethodDeclaration methodTestSuite, ClassOrInterfaceDeclaration pageObject, String pageObjectVariable,
+	private void analyzeAssertCallExpStmt(MethodDeclaration methodTestSuite, PageObjectModel pageObject, String pageObjectVariable,
 			ExpressionStmt expression) {	
+		record(Operation.ASSERT, pageObject.getName(), pageObjectVariable, expression);
 		BlockStmt bodyMethod;
 		MethodCallExpr assertCall = (MethodCallExpr) expression.getExpression();		
 		//The first node contains the assert, the second contains the methodCall to the locator
 		MethodCallExpr firstArgumentInvocation = (MethodCallExpr) assertCall.getChildNodes().get(1);
 		MethodCallExpr findElementInvocation = (MethodCallExpr) firstArgumentInvocation.getChildNodes().get(0);
 		List<Node> childNodes = assertCall.getChildNodes(); 		
-		MethodDeclaration methodPO = searchGetterInPO(pageObject,findElementInvocation);;
+		String generatedName = generateNameForGetterCalls(findElementInvocation);
+		String getterName = searchGetterInPO(pageObject,generatedName);
 		
-		if(methodPO==null) {
+		if(getterName==null) {
 			//create the method PO statement			
-			methodPO = new MethodDeclaration() 					
-					.setName(generateNameForGetterCalls(findElementInvocation))
+			MethodDeclaration methodPO = new MethodDeclaration() 					
+					.setName(generatedName)
 					.setPublic(true);
 			bodyMethod = methodPO.getBody().get();
 			//Node 0 is the commnad
@@ -644,44 +1920,42 @@ public class TreeDecomposer {
 			switch(childNodes.get(0).toString()) {
 				case "assertEquals":
 				case "assertThat":							
-					methodPO.setType("String");
+					methodPO.setType(classType("String"));
 					break;
 				case "assertTrue":
 				case "assertFalse":							
-					methodPO.setType("boolean");
+					methodPO.setType(PrimitiveType.booleanType());
 					break;
 				default:						
 					throw new UnsupportedOperationException("No conversion found for this istruction: " +childNodes.get(0).toString() );					
 			}												
 			MethodCallExpr methodCall = (MethodCallExpr) childNodes.get(1);
-			bodyMethod.addStatement("return " + methodCall+";");	
+			bodyMethod.addStatement(asParsed(new ReturnStmt(methodCall)));	
 			//Add Method To PO
 			addMethod(methodPO,pageObject,null,null);	
+			getterName = methodPO.getNameAsString();
 		}	
 		//Now add the assert in the Main Function	
 		bodyMethod = methodTestSuite.getBody().get();	
 		//Create the statement
-		String statement = createAssertWithNormalStmt(childNodes,pageObjectVariable, methodPO, null);									
-		bodyMethod.addStatement(statement);		
+		bodyMethod.addStatement(createAssertWithNormalStmt(assertCall,pageObjectVariable, getterName, null));		
 	}
 
 	/** Search if the getter is already defined in the PageObject
-	 * if it is already defined the method is return else null
+	 * if it is already defined the name of the method is return else null
 	 * 
 	 * @param pageObject
-	 * @param findElementCall
+	 * @param generatedName name of the getter of the locator
 	 * @return
 	 */
-	private MethodDeclaration searchGetterInPO(ClassOrInterfaceDeclaration pageObject, MethodCallExpr findElementCall) {
-		String generatedName = generateNameForGetterCalls(findElementCall);
-		for(MethodDeclaration method : pageObject.findAll(MethodDeclaration.class)) {
-			if(method.getNameAsString().equals(generatedName)) 
-				return method;
-		}
-		return null;
+	private String searchGetterInPO(PageObjectModel pageObject, String generatedName) {
+		if(!pageObject.containsMethodName(generatedName))
+			return null;
+		count(Counter.GETTERS_REUSED);
+		return generatedName;
 	}
 	
-	/** Generate the name for a getter Call
+	/** Generate the name for a getter Call, the name is taken from the catalog of the locators
 	 * 
 	 * @param findElementInvocation
 	 * @return
@@ -689,43 +1963,17 @@ public class TreeDecomposer {
 	private String generateNameForGetterCalls(MethodCallExpr findElementInvocation) {
 		//The third element contains the Locator invocation
 		MethodCallExpr locatorInvocation = (MethodCallExpr) findElementInvocation.getChildNodes().get(2);
-		List<Node> nodes = locatorInvocation.getChildNodes();
-		//[By, id/css/others, 'identifier']		
-		String baseGetter = "get";
-		if(findElementInvocation.toString().contains("findElements"))
-			baseGetter = "getList";
-		return baseGetter+nodes.get(1).toString().toUpperCase()+"_"+cleanCharacterForMethod(nodes.get(2).toString());
+		//[By, id/css/others, 'identifier']
+		Expression argument = locatorInvocation.getArgument(0);
+		String literal = argument.isStringLiteralExpr() ? argument.asStringLiteralExpr().getValue() : argument.toString();
+		//A findElements call, also in the calls before it like driver.findElements(..).get(0).findElement(..)
+		boolean list = isFindElements(findElementInvocation)
+				|| findElementInvocation.getScope().map(scope -> scope.findFirst(MethodCallExpr.class, TreeDecomposer::isFindElements).isPresent()).orElse(false);
+		return locators.get(locatorInvocation.getNameAsString(), literal).getterName(list);
 	}
 	
-	/** Replace invalid character like - , ", : and . () for a methodDeclaration
-	 * 
-	 * @param value
-	 * @return
-	 */
-	private String cleanCharacterForMethod(String value) {
-		List<String> valueToReplace = new LinkedList<String>();
-		valueToReplace.add("\"");
-		valueToReplace.add(":");
-		valueToReplace.add(".");
-		valueToReplace.add("(");
-		valueToReplace.add(")");
-		valueToReplace.add("'");
-		valueToReplace.add("\\");
-		valueToReplace.add("/");
-		valueToReplace.add("#");
-		valueToReplace.add("[");
-		valueToReplace.add("]");
-		valueToReplace.add("@");
-		valueToReplace.add("=");
-		valueToReplace.add("*");
-		valueToReplace.add(" ");
-		valueToReplace.add(">");
-		value =  value.replace("-","_");
-		for(String removeThis : valueToReplace) {
-			value = value.replace(removeThis, "");
-		}
-		return value;
-			
+	private static boolean isFindElements(MethodCallExpr call) {
+		return call.getNameAsString().equals("findElements");
 	}
 
 	/** This method will analyze a BlockStmt assert instruction 
@@ -740,10 +1988,12 @@ public class TreeDecomposer {
 	 * @param values
 	 * @param argumentsName
 	 */
-	private void generateAssertCallBlockStmt(MethodDeclaration methodTestSuite,ClassOrInterfaceDeclaration pageObject,
+	private void generateAssertCallBlockStmt(MethodDeclaration methodTestSuite,PageObjectModel pageObject,
 			String lastPageVariable,
 			 BlockStmt blockInstruction,List<Node> values,List<NameExpr> argumentsName) {		
-		List<Node> childs = blockInstruction.getChildNodes();
+		record(Operation.BLOCK_ASSERT, pageObject.getName(), lastPageVariable, blockInstruction);
+		//The instructions moved to the getter are removed from the block, so a copy of the list is needed
+		List<Node> childs = new ArrayList<>(blockInstruction.getChildNodes());
 		BlockStmt bodyMethod;
 		//The first instruction contains the variable declaration
 		ExpressionStmt stmt = (ExpressionStmt) childs.get(0);		
@@ -754,41 +2004,44 @@ public class TreeDecomposer {
 		//If the method call is something like: driver.findElement(By..).getValue(..) then the first MethodCall is the correct argument
 		if(findElement.getChildNodes().size()>=3 && findElement.getChildNodes().get(0) instanceof MethodCallExpr) 	
 				findElement = (MethodCallExpr) findElement.getChildNodes().get(0);
-		MethodDeclaration methodPO = searchGetterInPO(pageObject,findElement);
+		String generatedName = generateNameForGetterCalls(findElement);
+		String getterName = searchGetterInPO(pageObject,generatedName);
 		
-		if(methodPO==null) {
-			methodPO = new MethodDeclaration() 					
-					.setName(generateNameForGetterCalls(findElement))
+		if(getterName==null) {
+			MethodDeclaration methodPO = new MethodDeclaration() 					
+					.setName(generatedName)
 					.setPublic(true);
 			bodyMethod = methodPO.getBody().get();	
 			Node lastNode = null;
 			for(Node child : childs) {
-				if(child.toString().startsWith("assert")) {					
+				Classification childStatement = StatementClassifier.classify(child);
+				if(childStatement.isAssert()) {					
 					VariableDeclarationExpr variableDeclExp = (VariableDeclarationExpr) lastNode.getChildNodes().get(0);
-					methodPO.setType(variableDeclExp.getElementType());
+					//The type stays also in the variable declaration, so it is copied
+					methodPO.setType(variableDeclExp.getElementType().clone());
 					VariableDeclarator variableDecl = (VariableDeclarator)variableDeclExp.getChildNodes().get(0);
-					bodyMethod.addStatement("return " +variableDecl.getNameAsString()+";");					
+					bodyMethod.addStatement(asParsed(new ReturnStmt(new NameExpr(variableDecl.getNameAsString()))));					
 					addMethod(methodPO,pageObject,values,argumentsName);						
 				}else {
-					ExpressionStmt expStmt = (ExpressionStmt)child.clone();
-					analyzeMethodArguments(expStmt,values,argumentsName);	
+					ExpressionStmt expStmt = (ExpressionStmt)child;
+					analyzeMethodArguments(expStmt,childStatement,values,argumentsName);	
 					bodyMethod.addStatement(expStmt);
 				}
 				lastNode = child;
 			}
+			getterName = methodPO.getNameAsString();
 		}
-		String testSuiteMethodcallStmt;
-		bodyMethod = methodPO.getBody().get();
+		Statement testSuiteMethodcallStmt;
 		Node lastInstruction = childs.get(childs.size()-1);
 		if( lastInstruction instanceof AssertStmt) { //this is a special case
 			Node secondLastNode = childs.get(childs.size()-2);
 			VariableDeclarationExpr variableDeclExp = (VariableDeclarationExpr) secondLastNode.getChildNodes().get(0);
 			VariableDeclarator variableDecl = (VariableDeclarator)variableDeclExp.getChildNodes().get(0);
 			
-			testSuiteMethodcallStmt = createAssertWithAssertStmt(lastPageVariable, methodPO, values, lastInstruction, variableDecl);	
+			testSuiteMethodcallStmt = createAssertWithAssertStmt(lastPageVariable, getterName, values, lastInstruction, variableDecl);	
 		}else {
-			List<Node> childNodes = ((MethodCallExpr)((ExpressionStmt)lastInstruction).getExpression()).getChildNodes(); 
-			testSuiteMethodcallStmt = createAssertWithNormalStmt(childNodes,lastPageVariable, methodPO, values);		
+			MethodCallExpr assertCall = (MethodCallExpr)((ExpressionStmt)lastInstruction).getExpression(); 
+			testSuiteMethodcallStmt = createAssertWithNormalStmt(assertCall,lastPageVariable, getterName, values);		
 		}	
 		bodyMethod = methodTestSuite.getBody().get();
 		bodyMethod.addStatement(testSuiteMethodcallStmt);
@@ -796,80 +2049,56 @@ public class TreeDecomposer {
 		argumentsName.clear();
 	}
 	
-	/** Create the String instruction for an assert, with the optional argument call list
+	/** Create the instruction for an assert, the first argument is replaced by the call to the getter with the optional argument call list
 	 * 
-	 * @param childNodes
+	 * @param assertCall
 	 * @param lastPageVariable
-	 * @param methodPO
+	 * @param getterName
 	 * @param values
 	 * @return
 	 */
-	private String createAssertWithNormalStmt(List<Node> childNodes,String lastPageVariable, MethodDeclaration methodPO, List<Node> values) {
-		String statement = childNodes.get(0).toString() +"(";		
-		statement+=lastPageVariable+"."+methodPO.getNameAsString()+"(";
-		statement+=argumentParser(values);	
-		statement+=")";
-		for(int i=2;i<childNodes.size();i++)
-			statement+=","+childNodes.get(i);					
-		statement+=");";
-		return statement;
+	private ExpressionStmt createAssertWithNormalStmt(MethodCallExpr assertCall,String lastPageVariable, String getterName, List<Node> values) {
+		NodeList<Expression> arguments = new NodeList<>();
+		arguments.add(createCallExpr(lastPageVariable, getterName, values));
+		for(int i=1;i<assertCall.getArguments().size();i++)
+			arguments.add(assertCall.getArgument(i));
+		return asParsed(new ExpressionStmt(new MethodCallExpr(null, assertCall.getNameAsString(), arguments)));
 	}
 	
 	/** Create an assert base statement, that means the entire check is execute in an expression like that assert(somethingTrue/False)
 	 * 
 	 * @param lastPageVariable
-	 * @param methodPO
+	 * @param getterName
 	 * @param values
 	 * @param assertNode
 	 * @param variableDecl
+	 * The variable in the left side of the check is replaced by the call to the getter
 	 * @return
 	 */
-	private String createAssertWithAssertStmt(String lastPageVariable, MethodDeclaration methodPO, List<Node> values,
+	private AssertStmt createAssertWithAssertStmt(String lastPageVariable, String getterName, List<Node> values,
 			Node assertNode, VariableDeclarator variableDecl) {
-		String statement;
 		AssertStmt asserStmt = (AssertStmt) assertNode;
 		EnclosedExpr enclosedExp = (EnclosedExpr) asserStmt.getChildNodes().get(0);
 		BinaryExpr binaryExpr = (BinaryExpr) enclosedExp.getChildNodes().get(0);
-		statement = "assert("; 					
-		statement+=lastPageVariable+"."+methodPO.getNameAsString()+"(";
-		statement+=argumentParser(values);					
-		statement+=")";
-		statement+= binaryExpr.getLeft().toString().replaceFirst(variableDecl.getNameAsString(), "");
-		statement+=" "+binaryExpr.getOperator().asString()+" "+binaryExpr.getRight()+");";
-		return statement;
-	}
-	
-	/* Delimiter Searcher*/
-	/** Check if the instruction {SeleniumIDEExt}backToMain is found
-	 * @param exp
-	 * @return 
-	 */
-	private boolean _checkDelimiterEnd(Node exp) {
-		return DELIMITER_BACK_TO_MAIN.equals(exp.toString()); 
+		MethodCallExpr getterCall = createCallExpr(lastPageVariable, getterName, values);
+		Expression left = binaryExpr.getLeft();
+		if(left.isNameExpr() && left.asNameExpr().getNameAsString().equals(variableDecl.getNameAsString())) {
+			left = getterCall;
+		}else {
+			Optional<NameExpr> variable = left.findFirst(NameExpr.class, name -> name.getNameAsString().equals(variableDecl.getNameAsString()));
+			if(!variable.isPresent())
+				throw new UnsupportedOperationException("The variable " + variableDecl.getNameAsString() + " is not used in this assert: " + asserStmt);
+			variable.get().replace(getterCall);
+		}
+		BinaryExpr check = new BinaryExpr(left, binaryExpr.getRight(), binaryExpr.getOperator());
+		return asParsed(new AssertStmt(new EnclosedExpr(check)));
 	}
 	
-	/** Check if the instruction is a System.out.println(\"{SeleniumIDEExt} Delimiter
-	 *  
-	 * @param exp
-	 * @return null if it's not a delimiter, otherwise will return the map of the elements pageObject/pageMethod
+	/** Return the name of the PageObject with the prefix, in lower case if the names are normalized
+	 * 
+	 * @param input name written in the delimiter
+	 * @return
 	 */
-	private Map<String, String> checkDelimiterInstruction(Node exp) {
-		if(!exp.toString().contains(DELIMITER_PO_DECLARATION)) 
-			return null;
-		Map<String,String> hashMap = new HashMap<>();
-		Optional<MethodCallExpr> callExp = exp.findFirst(MethodCallExpr.class);
-		if(callExp.isEmpty()) return null;
-		
-		LiteralExpr argument = callExp.get().getArgument(0).asLiteralExpr();
-		String[] values = argument.toString().replaceAll("\"","").split(":");
-		if(values.length!=3) 
-			return null;
-		
-		hashMap.put(KEY_HASH_PO_NAME, getPOName(values[1]));
-		hashMap.put(KEY_HASH_PO_METHOD, values[2]);		
-		return hashMap;
-	}
-	
 	private String getPOName(String input) {
 		if(this.normalize) {
 			input = input.toLowerCase();
@@ -880,19 +2109,18 @@ public class TreeDecomposer {
 	
 	/** Argument Analyzer */
 	
-	/** This method will create a String with all the argument to use to call a Mehtod
+	/** This method will create the list of all the argument to use to call a Mehtod
 	 * 
 	 * @param values
-	 * @return "" or a string of arguments call
-	 */
-	private String argumentParser(List<Node> values) {
-		String statement = "";
-		if(values!=null && values.size()>0) {
-			statement+=values.get(0).toString();
-			for(int i=1;i<values.size();i++) 
-				statement+=","+values.get(i).toString();			
+	 * @return empty or the list of arguments call
+	 */
+	private NodeList<Expression> argumentParser(List<Node> values) {
+		NodeList<Expression> arguments = new NodeList<>();
+		if(values!=null) {
+			for(Node value : values) 
+				arguments.add((Expression) value);			
 		}		
-		return statement;
+		return arguments;
 	}
 
 
@@ -900,16 +2128,17 @@ public class TreeDecomposer {
 	 * In that case it will change the node inside the call and replace it with a variable
 	 * Then will add this variable and the original value in memory for create the correct call and method invocation
 	 * @param expStmt 
+	 * @param statement classification of the statement
 	 * @param values list of real values
 	 * @param variables list of variable
 	 */
-	private void analyzeMethodArguments(ExpressionStmt expStmt,List<Node> values,List<NameExpr> variables) {
+	private void analyzeMethodArguments(ExpressionStmt expStmt,Classification statement,List<Node> values,List<NameExpr> variables) {
 		
 		if(!(expStmt.getChildNodes().get(0) instanceof MethodCallExpr)) 
 			return;	
 		
-		boolean containsSendKeys = expStmt.toString().contains("sendKeys");
-		boolean containsXPath  = expStmt.toString().contains("By.xpath");
+		boolean containsSendKeys = statement.containsSendKeys();
+		boolean containsXPath  = statement.containsXPath();
 		
 		if(!containsSendKeys && !containsXPath) 		
 			return; //no sendKeys or Xpath means no argument to check		
@@ -958,6 +2187,8 @@ public class TreeDecomposer {
 	}
 	
 	/** Extract the argument from the By.xpath call
+	 * The values of the predicates found by {@link XPathLiteral} become parameters, the new xpath is the concatenation of the
+	 * text between them and the variables
 	 * 
 	 * @param methodCallExpr
 	 * @param values
@@ -970,44 +2201,64 @@ public class TreeDecomposer {
 			Node node = childs.get(i);		
 			if(node instanceof MethodCallExpr) {
 				MethodCallExpr xPathCall = (MethodCallExpr)node;				
-				if(xPathCall.toString().startsWith("By.xpath")) {
+				if(isXPathCall(xPathCall)) {
 					//the child is: By, xpath, realPathString
-					
 					Node literal = xPathCall.getChildNodes().get(2);
 					if(!(literal instanceof StringLiteralExpr)) continue; 	
-					
-					if(!literal.toString().contains("value=") && !literal.toString().contains("text=") && !literal.toString().contains(". ="))
+					List<String> parts = XPathLiteral.split(((StringLiteralExpr)literal).getValue());
+					if(parts==null)
 						continue;//No variabile to look at
-	
-					String[] optionSplit = literal.toString().replaceAll("(\\\\)", "").split("'");
-					String methodArgument = optionSplit[0];
-					for(int k=1;k<optionSplit.length;k++) {
-						if(k%2==1) { // -> "//input[@name=\'status2\' and @value=\'Listed\']" -> odd = variable, pair = command
-							String variableCommand;
-							if(optionSplit[k-1].toString().contains(". =") || optionSplit[k-1].toString().contains("text=") || optionSplit[k-1].toString().contains("value=") ) {
-								values.add(new StringLiteralExpr(optionSplit[k]));	
-								NameExpr var = new NameExpr("key"+values.size());
-								variables.add(var);		
-								variableCommand ="\"+"+ var.getNameAsString() +"+\"";
-							}else {
-								variableCommand = optionSplit[k];
-							}							
-							methodArgument+="\'"+ variableCommand +"\'";							
-						}else {
-							methodArgument+=optionSplit[k];
-						}
-					}							
-					MethodCallExpr newMethodCall = new MethodCallExpr("By.xpath");
-					newMethodCall.addArgument(methodArgument);			
+					// -> "//input[@name='status2' and @value='"+key1+"']"
+					Expression xpathArgument = new StringLiteralExpr(parts.get(0));
+					for(int k=1;k<parts.size();k+=2) {
+						values.add(new StringLiteralExpr(parts.get(k)));	
+						NameExpr var = new NameExpr("key"+values.size());
+						variables.add(var);
+						xpathArgument = new BinaryExpr(new BinaryExpr(xpathArgument, var, BinaryExpr.Operator.PLUS),
+								new StringLiteralExpr(parts.get(k+1)), BinaryExpr.Operator.PLUS);
+					}
+					MethodCallExpr newMethodCall = new MethodCallExpr(new NameExpr("By"), "xpath", new NodeList<>(xpathArgument));
 					methodCallExpr.replace(node,newMethodCall);					
 				}				
 			}			
 		}
 	}
 	
+	/** Check if the call is By.xpath(..)
+	 * 
+	 * @param call
+	 * @return
+	 */
+	private boolean isXPathCall(MethodCallExpr call) {
+		if(!"xpath".equals(call.getNameAsString()) || !call.getScope().isPresent())
+			return false;
+		Expression scope = call.getScope().get();
+		return scope instanceof NameExpr && "By".equals(((NameExpr)scope).getNameAsString());
+	}
+	
+
+
+	/* Counters */
+	
+	private void count(Counter counter) {
+		ReplayFile file = replaying.get();
+		if(file!=null)
+			file.counters[counter.ordinal()]++;
+		else
+			counters.incrementAndGet(counter.ordinal());
+	}
+	
+	/** Return how many times the event happened since the decomposer was created, also for the replayed files
+	 * 
+	 * @param counter
+	 * @return
+	 */
+	public int getCount(Counter counter) {
+		return counters.get(counter.ordinal());
+	}
 
 	/* Logs */	
-	/** Return all the logs that happen during the compilation
+	/** Return all the logs that happen during the compilation, the list is empty if the decomposer has a WarningSink
 	 * 
 	 * @return list of logs
 	 */
@@ -1015,21 +2266,27 @@ public class TreeDecomposer {
 		return logs;
 	}
 	
-	/** Create a Log of warning for something happen
+	/** Give a warning to the sink
 	 * 
+	 * @param code
 	 * @param log
 	 */
-	private void addWarning(String log) {
-		addLog("Warning: " +log);
+	private void addWarning(WarningSink.Code code, String log) {
+		ReplayFile file = replaying.get();
+		if(file!=null)
+			file.warnings.add(new ReplayWarning(file.entry, code, log));
+		else if(transaction!=null)
+			transaction.warnings.add(new ReplayWarning(0, code, log));
+		else
+			warnings.warn(code, log);
 	}
 	
 	/** Add the log to the List of logs with the time stamp of when it happen
 	 * 
 	 * @param log
 	 */	
-	@SuppressWarnings("deprecation")
 	private void addLog(String log) {
-		logs.add((new Date()).toLocaleString() +" - "+log);
+		logs.add(logTime.format(System.currentTimeMillis()) +" - "+log);
 	}
 	
 	/** Return the main CompilationUnit where all the TestMethod is declared
@@ -0,0 +1,161 @@
+package unige.assessor;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/** Disk storage used by the TreeDecomposer in streaming mode, to keep the heap bounded
+ * The members of the test suite class are appended to a file as printed code, and the PageObject classes
+ * not used recently are saved as compressed source code and loaded again only when they are needed.
+ * The directory is deleted when the spool is closed
+ */
+public class UnitSpool implements Closeable {
+	private static final int BUFFER_SIZE = 64*1024;
+	private static final String TEST_SUITE_FILE = "TestSuite.members";
+	private static final String PAGE_OBJECT_SUFFIX = ".java.gz";
+
+	private final Path directory;
+	private final int maxPageObjects;
+	private final Writer testSuiteWriter;
+	//PageObjects saved on disk
+	private final Set<String> storedPageObjects = new HashSet<>();
+	//PageObjects in memory, from the least recently used to the most recently used
+	private final Map<String,Boolean> pageObjectsInMemory = new LinkedHashMap<>(16, 0.75f, true);
+
+	/**
+	 * @param directory empty directory owned by the spool
+	 * @param maxPageObjects max number of PageObjects kept in memory between two input files
+	 * @throws IOException
+	 */
+	public UnitSpool(Path directory, int maxPageObjects) throws IOException {
+		if(maxPageObjects<1)
+			throw new IllegalArgumentException("At least one PageObject must be kept in memory");
+		this.directory = Files.createDirectories(directory);
+		this.maxPageObjects = maxPageObjects;
+		testSuiteWriter = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(directory.resolve(TEST_SUITE_FILE)), 
+				StandardCharsets.UTF_8), BUFFER_SIZE);
+	}
+
+	/** Append printed members at the end of the test suite class
+	 *
+	 * @param members
+	 * @throws IOException
+	 */
+	public void appendTestSuite(String members) throws IOException {
+		testSuiteWriter.write(members);
+	}
+
+	/** Copy all the members of the test suite class written until now
+	 *
+	 * @param writer
+	 * @throws IOException
+	 */
+	public void writeTestSuite(Writer writer) throws IOException {
+		testSuiteWriter.flush();
+		try(Reader reader = Files.newBufferedReader(directory.resolve(TEST_SUITE_FILE), StandardCharsets.UTF_8)) {
+			char[] buffer = new char[BUFFER_SIZE];
+			int read;
+			while((read = reader.read(buffer))!=-1)
+				writer.write(buffer, 0, read);
+		}
+	}
+
+	/** Mark the PageObject as the most recently used, the PageObject must be in memory
+	 *
+	 * @param name
+	 */
+	public void pageObjectUsed(String name) {
+		pageObjectsInMemory.put(name, Boolean.TRUE);
+	}
+
+	/** Return the least recently used PageObject, if there are too many PageObjects in memory
+	 *
+	 * @return the name or null if no PageObject should be removed from memory
+	 */
+	public String pageObjectToEvict() {
+		if(pageObjectsInMemory.size()<=maxPageObjects)
+			return null;
+		return pageObjectsInMemory.keySet().iterator().next();
+	}
+
+	/** Forget the PageObject, because it is no more in memory
+	 *
+	 * @param name
+	 */
+	public void pageObjectRemoved(String name) {
+		pageObjectsInMemory.remove(name);
+	}
+
+	/** Save the PageObject and forget it as PageObject in memory
+	 *
+	 * @param name
+	 * @param source
+	 * @throws IOException
+	 */
+	public void storePageObject(String name, String source) throws IOException {
+		try(Writer writer = new OutputStreamWriter(new GZIPOutputStream(Files.newOutputStream(pageObjectFile(name)), BUFFER_SIZE), 
+				StandardCharsets.UTF_8)) {
+			writer.write(source);
+		}
+		storedPageObjects.add(name);
+		pageObjectRemoved(name);
+	}
+
+	/**
+	 * @param name
+	 * @return true if the PageObject is saved
+	 */
+	public boolean containsPageObject(String name) {
+		return storedPageObjects.contains(name);
+	}
+
+	/** Read the source of a saved PageObject
+	 *
+	 * @param name
+	 * @return
+	 * @throws IOException
+	 */
+	public String loadPageObject(String name) throws IOException {
+		StringBuilder source = new StringBuilder();
+		try(Reader reader = new BufferedReader(new InputStreamReader(new GZIPInputStream(Files.newInputStream(pageObjectFile(name)), BUFFER_SIZE), 
+				StandardCharsets.UTF_8))) {
+			char[] buffer = new char[BUFFER_SIZE];
+			int read;
+			while((read = reader.read(buffer))!=-1)
+				source.append(buffer, 0, read);
+		}
+		return source.toString();
+	}
+
+	private Path pageObjectFile(String name) {
+		return directory.resolve(name+PAGE_OBJECT_SUFFIX);
+	}
+
+	/** Close the test suite file and delete all the files of the spool */
+	@Override
+	public void close() throws IOException {
+		testSuiteWriter.close();
+		try(DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+			Iterator<Path> iterator = files.iterator();
+			while(iterator.hasNext())
+				Files.delete(iterator.next());
+		}
+		Files.delete(directory);
+	}
+}
@@ -0,0 +1,24 @@
+package unige.assessor;
+
+/** Receive the warnings of the TreeDecomposer while the files are analyzed */
+public interface WarningSink {
+
+	/** Kind of a warning, the warnings are counted and aggregated by kind and message */
+	enum Code {
+		//a PageObject method without statements is not added
+		EMPTY_METHOD,
+		//a PageObject method is added with a new name because the name is already used
+		METHOD_RENAMED,
+		//a PageObject method is not added because an identical method has another name
+		METHODS_UNIFIED,
+		//an input file is not decomposed because it can't be parsed, its analysis failed or it needed more than its time budget
+		FILE_SKIPPED
+	}
+
+	/** Called on the thread of the decomposer, so it must not do slow work
+	 *
+	 * @param code
+	 * @param message
+	 */
+	void warn(Code code, String message);
+}
@@ -0,0 +1,112 @@
+package unige.assessor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/** Single pass scanner of the literal of a By.xpath call, it finds the quoted values of the predicates that can become parameters
+ * A value is a parameter when the text before it, from the previous quote, contains value=, text= or ". =", or when it is
+ * compared with the text of the node: text()='x', .='x', normalize-space()='x', contains(text(),'x'), starts-with(.,'x').
+ * The spaces are ignored, so text() = 'x' is also found.
+ * The parameters found decide the getter calls recorded in the {@link DecompositionCache}, which is versioned with every class of the package
+ */
+public final class XPathLiteral {
+	//Text of the predicates, before a value compared with the text of the node
+	private static final String[] TEXT_FUNCTIONS = {"text()", ".", "normalize-space()", "normalize-space(.)", "normalize-space(text())"};
+	//Text just before a value that is a parameter, without spaces
+	private static final String[] PARAMETER_ENDINGS = new String[TEXT_FUNCTIONS.length*3];
+	static {
+		for(int i=0; i<TEXT_FUNCTIONS.length; i++) {
+			PARAMETER_ENDINGS[i*3] = TEXT_FUNCTIONS[i]+"=";
+			PARAMETER_ENDINGS[i*3+1] = "contains("+TEXT_FUNCTIONS[i]+",";
+			PARAMETER_ENDINGS[i*3+2] = "starts-with("+TEXT_FUNCTIONS[i]+",";
+		}
+	}
+	//Text that makes a parameter of the next value, anywhere from the previous quote
+	private static final String[] PARAMETER_MARKERS = {"value=", "text=", ". ="};
+
+	private XPathLiteral() {
+	}
+
+	/** Split the value of the literal around the values that are parameters
+	 * The even positions are the text between the parameters, with the quotes of the parameters, the odd positions are the
+	 * values of the parameters. Both are in the escaped form of the source code, only \' is written as ' because it
+	 * doesn't need the escape inside a string. Return null if no value is a parameter or a quote is not closed
+	 *
+	 * @param value escaped value of the string literal, without the double quotes
+	 * @return
+	 */
+	public static List<String> split(String value) {
+		List<String> parts = null;
+		StringBuilder text = new StringBuilder(value.length());
+		StringBuilder parameter = null;
+		//Start in text of the characters after the last quote
+		int segmentStart = 0;
+		boolean quoted = false;
+		for(int i=0; i<value.length(); i++) {
+			char character = value.charAt(i);
+			if(character=='\\' && i+1<value.length()) {
+				i++;
+				if(value.charAt(i)!='\'') {
+					//Any other escape is kept as it is and it is never a quote
+					(parameter!=null ? parameter : text).append(character).append(value.charAt(i));
+					continue;
+				}
+				character = '\'';
+			}
+			if(character!='\'') {
+				(parameter!=null ? parameter : text).append(character);
+				continue;
+			}
+			if(!quoted && isParameter(text, segmentStart)) {
+				text.append('\'');
+				parameter = new StringBuilder();
+			}else if(parameter!=null) {
+				if(parts==null)
+					parts = new ArrayList<>();
+				parts.add(text.toString());
+				parts.add(parameter.toString());
+				parameter = null;
+				text.setLength(0);
+				text.append('\'');
+			}else {
+				text.append('\'');
+			}
+			quoted = !quoted;
+			segmentStart = text.length();
+		}
+		if(quoted || parts==null)
+			return null;
+		parts.add(text.toString());
+		return parts;
+	}
+
+	/** Check if the value after the text is a parameter
+	 *
+	 * @param text
+	 * @param segmentStart start of the text after the last quote
+	 * @return
+	 */
+	private static boolean isParameter(StringBuilder text, int segmentStart) {
+		for(String marker : PARAMETER_MARKERS) {
+			if(text.indexOf(marker, segmentStart)>=0)
+				return true;
+		}
+		for(String ending : PARAMETER_ENDINGS) {
+			if(endsWithIgnoringSpaces(text, segmentStart, ending))
+				return true;
+		}
+		return false;
+	}
+
+	private static boolean endsWithIgnoringSpaces(StringBuilder text, int segmentStart, String ending) {
+		int position = text.length()-1;
+		for(int i=ending.length()-1; i>=0; i--) {
+			while(position>=segmentStart && Character.isWhitespace(text.charAt(position)))
+				position--;
+			if(position<segmentStart || text.charAt(position)!=ending.charAt(i))
+				return false;
+			position--;
+		}
+		return true;
+	}
+}
@@ -0,0 +1,116 @@
+package unige.assessor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.github.javaparser.ast.CompilationUnit;
+
+/** The version of the cache must change with every class used to record or replay a contribution */
+public class DecompositionCacheTest {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void everyClassLoadedByRecordAndReplayIsVersioned() throws Exception {
+		URL classes = DecompositionCache.class.getProtectionDomain().getCodeSource().getLocation();
+		try(PackageLoader loader = new PackageLoader(classes)) {
+			Class<?> decomposer = loader.loadClass(TreeDecomposer.class.getName());
+			Class<?> contribution = loader.loadClass(Contribution.class.getName());
+			Object parsers = loader.loadClass(ParserFactory.class.getName()).getMethod("parseOnly").invoke(null);
+			Object unit = parsers.getClass().getMethod("parse", String.class).invoke(parsers, readSample());
+			//The contribution is recorded, written in the cache, read again and replayed, then the units are built
+			Object recorder = decomposer.getConstructor(boolean.class, String.class, boolean.class).newInstance(false, "", true);
+			Object recorded = decomposer.getMethod("analyzeAndRecord", CompilationUnit.class).invoke(recorder, unit);
+			Object cache = loader.loadClass(DecompositionCache.class.getName())
+					.getConstructor(Path.class, boolean.class, String.class).newInstance(folder.getRoot().toPath(), false, "");
+			cache.getClass().getMethod("put", String.class, contribution).invoke(cache, "sample", recorded);
+			Object cached = contribution.getMethod("resolve").invoke(cache.getClass().getMethod("get", String.class).invoke(cache, "sample"));
+			Object replayer = decomposer.getConstructor(boolean.class, String.class, boolean.class).newInstance(false, "", true);
+			decomposer.getMethod("replayContribution", contribution).invoke(replayer, cached);
+			decomposer.getMethod("getUnits").invoke(replayer);
+
+			SortedSet<String> versioned = DecompositionCache.versionedClasses();
+			assertTrue(loader.loaded.contains(resourceName(XPathLiteral.class)));
+			for(String loaded : loader.loaded)
+				assertTrue(loaded+" is not part of the cache version", versioned.contains(loaded));
+		}
+	}
+
+	@Test
+	public void xpathParametersAreVersioned() throws IOException {
+		//The sample has a By.xpath call with a parameter, so its recorded getter depends on the splitting rules
+		assertNotNull(XPathLiteral.split("//td[. =\\'Welcome39\\']"));
+		assertTrue(readSample().contains("By.xpath(\"//td[. =\\'Welcome39\\']\")"));
+		assertTrue(DecompositionCache.versionedClasses().contains(resourceName(XPathLiteral.class)));
+	}
+
+	@Test
+	public void versionIsStable() throws IOException {
+		assertEquals(DecompositionCache.toolVersion(), DecompositionCache.toolVersion());
+	}
+
+	@Test
+	public void entriesOfOtherSettingsAreRemoved() throws IOException {
+		Path directory = folder.getRoot().toPath();
+		Contribution contribution = new Contribution();
+		contribution.add(Contribution.Operation.PAGE_OBJECT, "Page0");
+		new DecompositionCache(directory, false, "").put("sample", contribution);
+		assertNotNull(new DecompositionCache(directory, false, "").get("sample"));
+		assertNull(new DecompositionCache(directory, true, "").get("sample"));
+	}
+
+	private static String readSample() throws IOException {
+		try(InputStream input = DecompositionCacheTest.class.getResourceAsStream("SampleExport.java.txt")) {
+			byte[] content = new byte[64*1024];
+			int size = 0, read;
+			while((read = input.read(content, size, content.length-size))>0)
+				size += read;
+			return new String(content, 0, size, StandardCharsets.UTF_8);
+		}
+	}
+
+	private static String resourceName(Class<?> loaded) {
+		return loaded.getName().replace('.', '/')+".class";
+	}
+
+	/** Load the classes of the tool again, without asking the parent, so each class of the package used is seen */
+	private static class PackageLoader extends URLClassLoader {
+		private final Set<String> loaded = new TreeSet<>();
+
+		PackageLoader(URL classes) {
+			super(new URL[] {classes}, DecompositionCacheTest.class.getClassLoader());
+		}
+
+		@Override
+		protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+			if(!name.startsWith(DecompositionCache.class.getPackage().getName()+"."))
+				return super.loadClass(name, resolve);
+			synchronized(getClassLoadingLock(name)) {
+				Class<?> found = findLoadedClass(name);
+				if(found==null) {
+					found = findClass(name);
+					loaded.add(name.replace('.', '/')+".class");
+				}
+				if(resolve)
+					resolveClass(found);
+				return found;
+			}
+		}
+	}
+}
@@ -0,0 +1,82 @@
+package unige.assessor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/** The files written by the OutputWriter have the permissions of any file created by the user, not only the owner ones */
+public class OutputWriterTest {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private Path directory;
+	//Permissions of a file created with the umask of the user
+	private Set<PosixFilePermission> defaultPermissions;
+
+	@Before
+	public void readDefaultPermissions() throws IOException {
+		directory = folder.getRoot().toPath();
+		assumeTrue(Files.getFileAttributeView(directory, PosixFileAttributeView.class)!=null);
+		Path plain = directory.resolve("plain.txt");
+		try(OutputStream output = Files.newOutputStream(plain)) {
+			output.write('x');
+		}
+		defaultPermissions = Files.getPosixFilePermissions(plain);
+	}
+
+	@Test
+	public void newFileHasDefaultPermissions() throws IOException {
+		OutputWriter output = new OutputWriter();
+		Path text = directory.resolve("Text.java");
+		Path streamed = directory.resolve("Streamed.java");
+		assertTrue(output.write(text, "class Text {}"));
+		assertTrue(output.write(streamed, writer -> writer.write("class Streamed {}")));
+		assertEquals(defaultPermissions, Files.getPosixFilePermissions(text));
+		assertEquals(defaultPermissions, Files.getPosixFilePermissions(streamed));
+	}
+
+	@Test
+	public void replacedFileKeepsItsPermissions() throws IOException {
+		Set<PosixFilePermission> permissions = PosixFilePermissions.fromString("rw-rw-r--");
+		Path text = directory.resolve("Text.java");
+		Path streamed = directory.resolve("Streamed.java");
+		Path moved = directory.resolve("Moved.java");
+		for(Path target : new Path[] {text, streamed, moved}) {
+			Files.write(target, "class Old {}".getBytes(StandardCharsets.UTF_8));
+			Files.setPosixFilePermissions(target, permissions);
+		}
+		OutputWriter output = new OutputWriter();
+		assertTrue(output.write(text, "class Text {}"));
+		assertTrue(output.write(streamed, writer -> writer.write("class Streamed {}")));
+		Path file = OutputWriter.createTempFile(directory, "Moved.java");
+		Files.write(file, "class Moved {}".getBytes(StandardCharsets.UTF_8));
+		assertTrue(output.write(moved, file));
+		for(Path target : new Path[] {text, streamed, moved})
+			assertEquals(permissions, Files.getPosixFilePermissions(target));
+	}
+
+	@Test
+	public void logsFileHasDefaultPermissions() throws IOException {
+		OutputWriter output = new OutputWriter();
+		try(LogSink logs = new LogSink(directory, LogSink.Format.TEXT, false)) {
+			logs.warn(WarningSink.Code.FILE_SKIPPED, "The file Test.java is skipped");
+			assertEquals(1, logs.finish(output));
+		}
+		assertEquals(defaultPermissions, Files.getPosixFilePermissions(directory.resolve(LogSink.Format.TEXT.getFileName())));
+	}
+}
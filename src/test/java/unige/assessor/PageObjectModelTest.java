@@ -0,0 +1,56 @@
+package unige.assessor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
+import com.github.javaparser.ast.body.MethodDeclaration;
+
+/** The model of a PageObject stays valid after its unit is built */
+public class PageObjectModelTest {
+
+	@Test
+	public void unitCanBeBuiltAgain() {
+		PageObjectModel model = new PageObjectModel("LoginPage");
+		model.addMethod(method("public void login(String user) { driver.findElement(By.id(\"user\")).sendKeys(user); }"));
+		model.addMethod(method("public void logout() { driver.findElement(By.id(\"logout\")).click(); }"));
+		CompilationUnit first = model.toCompilationUnit("test.PO");
+		String printed = first.toString();
+		CompilationUnit second = model.toCompilationUnit("test.PO");
+		assertEquals(printed, second.toString());
+		//The first unit keeps its methods
+		assertEquals(printed, first.toString());
+		ClassOrInterfaceDeclaration pageObject = first.getClassByName("LoginPage").get();
+		assertEquals(2, pageObject.getMethods().size());
+		for(MethodDeclaration method : pageObject.getMethods())
+			assertSame(pageObject, method.getParentNode().get());
+	}
+
+	@Test
+	public void changedUnitDoesNotChangeTheModel() {
+		PageObjectModel model = new PageObjectModel("LoginPage");
+		model.addMethod(method("public void logout() { driver.findElement(By.id(\"logout\")).click(); }"));
+		CompilationUnit first = model.toCompilationUnit("test.PO");
+		String printed = first.toString();
+		first.getClassByName("LoginPage").get().getMethodsByName("logout").get(0).setName("signOut").getBody().get().getStatements().clear();
+		assertEquals(printed, model.toCompilationUnit("test.PO").toString());
+	}
+
+	@Test
+	public void methodsAreFoundAfterTheUnitIsBuilt() {
+		PageObjectModel model = new PageObjectModel("LoginPage");
+		model.addMethod(method("public void logout() { driver.findElement(By.id(\"logout\")).click(); }"));
+		model.toCompilationUnit("test.PO");
+		assertEquals("logout", model.findSameMethod(method("public void signOut() { driver.findElement(By.id(\"logout\")).click(); }")));
+		assertTrue(model.containsMethodName("logout"));
+	}
+
+	private static MethodDeclaration method(String source) {
+		return StaticJavaParser.parseMethodDeclaration(source);
+	}
+}